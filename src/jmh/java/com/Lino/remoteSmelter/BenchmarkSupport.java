@@ -0,0 +1,95 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.permissions.Permissible;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static World world(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes());
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getUID":
+                            return uid;
+                        case "isChunkLoaded":
+                            return true;
+                        case "hashCode":
+                            return uid.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "World{" + name + "}";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    static void server() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+        Logger logger = quietLogger();
+        Bukkit.setServer((Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[]{Server.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getLogger":
+                            return logger;
+                        case "getName":
+                        case "getVersion":
+                        case "getBukkitVersion":
+                            return "benchmark";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                }));
+    }
+
+    static Permissible permissible(Set<String> permissions) {
+        return (Permissible) Proxy.newProxyInstance(Permissible.class.getClassLoader(), new Class<?>[]{Permissible.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("hasPermission") && args[0] instanceof String) {
+                        return permissions.contains(args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static Logger quietLogger() {
+        Logger logger = Logger.getLogger("RemoteSmelterBenchmark");
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.OFF);
+        return logger;
+    }
+
+    static File tempFolder() throws IOException {
+        return Files.createTempDirectory("remotesmelter-bench").toFile();
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,42 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.UUID;
+
+public final class HeapFootprint {
+
+    private static final int SMELTERS = 100_000;
+    private static final int SMELTERS_PER_PLAYER = 10;
+
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) {
+        World world = BenchmarkSupport.world("world");
+        RemoteSmelter.SmelterData[] smelters = new RemoteSmelter.SmelterData[SMELTERS];
+        for (int row = 0; row < SMELTERS; row++) {
+            UUID owner = new UUID(0L, row % (SMELTERS / SMELTERS_PER_PLAYER));
+            smelters[row] = new RemoteSmelter.SmelterData(owner, "s" + row,
+                    new Location(world, row & 0xFFFF, 64 + (row >>> 16 & 0x7F), row >>> 23));
+        }
+
+        GraphLayout layout = GraphLayout.parseInstance((Object[]) smelters);
+        long total = layout.totalSize();
+        long names = 0L;
+        for (RemoteSmelter.SmelterData data : smelters) {
+            names += GraphLayout.parseInstance(data.name).totalSize();
+        }
+
+        System.out.println(VM.current().details());
+        String footprint = layout.toFootprint();
+        System.out.println(footprint.substring(footprint.indexOf('\n') + 1));
+        System.out.printf("%,d smelters: %,d bytes, %,d bytes without names, %.1f bytes per smelter without names%n",
+                SMELTERS, total, total - names, (double) (total - names) / SMELTERS);
+        System.out.printf("owner table: %,d bytes for %,d owners%n",
+                GraphLayout.parseInstance(RemoteSmelter.SmelterData.OWNERS).totalSize(), SMELTERS / SMELTERS_PER_PLAYER);
+    }
+}
@@ -0,0 +1,94 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.permissions.Permissible;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    private static final int SMELTERS_PER_PLAYER = 10;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private final Map<UUID, Map<String, RemoteSmelter.SmelterData>> playerSmelters = new ConcurrentHashMap<>();
+    private final SmelterIndex index = new SmelterIndex();
+    private final Map<String, Integer> groupLimits = new LinkedHashMap<>();
+    private World world;
+    private UUID[] owners;
+    private Permissible defaultPlayer;
+    private Permissible vipPlayer;
+    private final LimitCache limitCache = new LimitCache(60_000L);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = BenchmarkSupport.world("world");
+        owners = new UUID[Math.max(1, rows / SMELTERS_PER_PLAYER)];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = new UUID(0L, i);
+        }
+
+        for (int row = 0; row < rows; row++) {
+            UUID owner = owners[row % owners.length];
+            RemoteSmelter.SmelterData data = new RemoteSmelter.SmelterData(owner, "s" + row,
+                    new Location(world, row & 0xFFFF, 64 + (row >>> 16 & 0x7F), row >>> 23));
+            playerSmelters.computeIfAbsent(owner, k -> new HashMap<>()).put(data.name, data);
+            index.add(data);
+        }
+
+        groupLimits.put("staff", -1);
+        groupLimits.put("mvp", 50);
+        groupLimits.put("vip", 20);
+        groupLimits.put("default", 5);
+        defaultPlayer = BenchmarkSupport.permissible(Collections.emptySet());
+        vipPlayer = BenchmarkSupport.permissible(Collections.singleton("remotesmelter.group.vip"));
+    }
+
+    @Benchmark
+    public Object playerSmeltersByName() {
+        int row = ThreadLocalRandom.current().nextInt(rows);
+        Map<String, RemoteSmelter.SmelterData> smelters = playerSmelters.get(owners[row % owners.length]);
+        return smelters == null ? null : smelters.get("s" + row);
+    }
+
+    @Benchmark
+    public int playerSmelterCount() {
+        Map<String, RemoteSmelter.SmelterData> smelters =
+                playerSmelters.get(owners[ThreadLocalRandom.current().nextInt(owners.length)]);
+        return smelters == null ? 0 : smelters.size();
+    }
+
+    @Benchmark
+    public Object indexByLocation() {
+        int row = ThreadLocalRandom.current().nextInt(rows);
+        return index.get(world, row & 0xFFFF, 64 + (row >>> 16 & 0x7F), row >>> 23);
+    }
+
+    @Benchmark
+    public int playerLimitDefaultGroup() {
+        return RemoteSmelter.resolveLimit(groupLimits, defaultPlayer);
+    }
+
+    @Benchmark
+    public int playerLimitVipGroup() {
+        return RemoteSmelter.resolveLimit(groupLimits, vipPlayer);
+    }
+
+    @Benchmark
+    public int playerLimitCached() {
+        return limitCache.get(owners[ThreadLocalRandom.current().nextInt(owners.length)],
+                () -> RemoteSmelter.resolveLimit(groupLimits, vipPlayer));
+    }
+}
@@ -0,0 +1,59 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+    private MessageManager messages;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        try (Reader reader = new InputStreamReader(
+                MessageBenchmark.class.getResourceAsStream("/messages.yml"), StandardCharsets.UTF_8)) {
+            messages = new MessageManager(YamlConfiguration.loadConfiguration(reader));
+        }
+    }
+
+    @Benchmark
+    public String plain() {
+        return messages.getMessage("commands.help.header");
+    }
+
+    @Benchmark
+    public String oneReplacement() {
+        return messages.getMessage("commands.create.success", "{NAME}", "iron");
+    }
+
+    @Benchmark
+    public String sixReplacements() {
+        return messages.getMessage("commands.stats.timer",
+                "{NAME}", "gui_open",
+                "{COUNT}", "1024",
+                "{AVG}", "0.125",
+                "{P50}", "0.064",
+                "{P99}", "1.024",
+                "{MAX}", "3.500");
+    }
+
+    @Benchmark
+    public String typedLocation() {
+        return messages.getMessage("gui.location", "{X}", 1024, "{Y}", 64, "{Z}", -2048);
+    }
+
+    @Benchmark
+    public String missingKey() {
+        return messages.getMessage("commands.does-not-exist");
+    }
+}
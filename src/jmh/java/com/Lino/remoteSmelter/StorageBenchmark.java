@@ -0,0 +1,117 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int PLAYERS = 1000;
+    private static final int BATCH = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private File folder;
+    private SqliteStorage storage;
+    private World world;
+    private UUID[] owners;
+    private List<StorageMutation> inserts;
+    private List<StorageMutation> deletes;
+    private int nextRow;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        folder = BenchmarkSupport.tempFolder();
+        storage = new SqliteStorage(new File(folder, "smelters.db"), BenchmarkSupport.quietLogger());
+        storage.initialize();
+        world = BenchmarkSupport.world("world");
+
+        owners = new UUID[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            owners[i] = new UUID(0L, i);
+        }
+
+        List<StorageMutation> batch = new ArrayList<>(10_000);
+        for (int row = 0; row < rows; row++) {
+            batch.add(add(row));
+            if (batch.size() == 10_000) {
+                storage.applyMutations(batch);
+                batch.clear();
+            }
+        }
+        storage.applyMutations(batch);
+        nextRow = rows;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+        BenchmarkSupport.delete(folder);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBatches() {
+        inserts = new ArrayList<>(BATCH);
+        deletes = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            int row = nextRow++;
+            inserts.add(add(row));
+            deletes.add(StorageMutation.remove(owner(row), "s" + row, location(row)));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void cleanupBatches() {
+        storage.applyMutations(deletes);
+    }
+
+    private StorageMutation add(int row) {
+        return StorageMutation.add(owner(row), "s" + row, location(row));
+    }
+
+    private UUID owner(int row) {
+        return owners[row % PLAYERS];
+    }
+
+    private Location location(int row) {
+        return new Location(world, row & 0xFFFF, 64 + (row >>> 16 & 0x7F), row >>> 23);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insert() {
+        storage.applyMutations(inserts);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertAndDelete() {
+        storage.applyMutations(inserts);
+        storage.applyMutations(deletes);
+    }
+
+    @Benchmark
+    public boolean lookupByName() {
+        int row = ThreadLocalRandom.current().nextInt(rows);
+        return storage.smelterExists(owner(row), "s" + row);
+    }
+
+    @Benchmark
+    public Object lookupByLocation() {
+        return storage.getSmelterOwner(location(ThreadLocalRandom.current().nextInt(rows)));
+    }
+}
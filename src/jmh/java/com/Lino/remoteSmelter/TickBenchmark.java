@@ -0,0 +1,81 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    private static final int SMELTERS_PER_PLAYER = 10;
+
+    @Param({"1000", "100000"})
+    public int smelters;
+
+    private final Map<UUID, Map<String, RemoteSmelter.SmelterData>> playerSmelters = new HashMap<>();
+    private final SmelterIndex index = new SmelterIndex();
+    private SmelterScheduler scheduler;
+    private int visited;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.server();
+        World world = BenchmarkSupport.world("world");
+        UUID[] owners = new UUID[Math.max(1, smelters / SMELTERS_PER_PLAYER)];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = new UUID(0L, i);
+        }
+
+        for (int row = 0; row < smelters; row++) {
+            UUID owner = owners[row % owners.length];
+            RemoteSmelter.SmelterData data = new RemoteSmelter.SmelterData(owner, "s" + row,
+                    new Location(world, row & 0xFFFF, 64 + (row >>> 16 & 0x7F), row >>> 23));
+            playerSmelters.computeIfAbsent(owner, k -> new HashMap<>()).put(data.name, data);
+            index.add(data);
+            index.markActive(data);
+        }
+
+        scheduler = new SmelterScheduler(index, this::visit, (data, budget) -> 0, new PerformanceMetrics());
+    }
+
+    private boolean visit(RemoteSmelter.SmelterData data) {
+        visited += data.block != 0L ? 1 : 0;
+        return true;
+    }
+
+    @Benchmark
+    public int nestedMapScan() {
+        for (Map<String, RemoteSmelter.SmelterData> smelters : playerSmelters.values()) {
+            for (RemoteSmelter.SmelterData data : smelters.values()) {
+                visit(data);
+            }
+        }
+        return visited;
+    }
+
+    @Benchmark
+    public int loadedArrayScan() {
+        RemoteSmelter.SmelterData[] loaded = index.getLoadedSmelters();
+        int count = index.getLoadedSmelterCount();
+        for (int i = 0; i < count; i++) {
+            visit(loaded[i]);
+        }
+        return visited;
+    }
+
+    @Benchmark
+    public int schedulerRun() {
+        scheduler.run();
+        return visited;
+    }
+}
@@ -0,0 +1,540 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class BinaryFileStorage implements SmelterStorage {
+
+    private static final int MAGIC = 0x52534D42;
+    private static final int FORMAT_VERSION = 2;
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_REMOVE_LOCATION = 3;
+    private static final byte OP_LINK = 4;
+    private static final byte OP_UNLINK = 5;
+
+    private final File file;
+    private final Logger logger;
+    private final Map<UUID, Map<String, Record>> byOwner = new HashMap<>();
+    private final Map<String, LongObjectMap<Record>> byLocation = new HashMap<>();
+    private FileOutputStream fileOut;
+    private int liveRecords;
+    private int loggedRecords;
+
+    public BinaryFileStorage(File dataFolder, Logger logger) {
+        this.file = new File(dataFolder, "smelters.bin");
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized void initialize() throws StorageException {
+        try {
+            if (!file.exists() || replay() < FORMAT_VERSION) {
+                rewrite();
+            }
+            openForAppend();
+        } catch (IOException e) {
+            throw new StorageException("Could not open smelter store " + file, e);
+        }
+    }
+
+    private int replay() throws IOException {
+        long validLength;
+        int version;
+        CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try (DataInputStream in = new DataInputStream(counter)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unrecognised smelter store header in " + file);
+            }
+            version = in.readInt();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("Unsupported smelter store version " + version + " in " + file);
+            }
+            validLength = counter.count;
+
+            while (true) {
+                int op = in.read();
+                if (op == -1) {
+                    break;
+                }
+
+                try {
+                    readRecord(in, (byte) op);
+                } catch (EOFException e) {
+                    logger.warning("Truncated record at end of " + file.getName() + ", discarding it");
+                    break;
+                }
+                validLength = counter.count;
+                loggedRecords++;
+            }
+        }
+
+        if (validLength < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+        return version;
+    }
+
+    private void readRecord(DataInputStream in, byte op) throws IOException {
+        switch (op) {
+            case OP_ADD: {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                String name = in.readUTF();
+                String world = in.readUTF();
+                int x = in.readInt();
+                int y = in.readInt();
+                int z = in.readInt();
+                put(new Record(uuid, name, world, x, y, z));
+                break;
+            }
+            case OP_REMOVE: {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                String name = in.readUTF();
+                removeByName(uuid, name);
+                break;
+            }
+            case OP_REMOVE_LOCATION: {
+                String world = in.readUTF();
+                int x = in.readInt();
+                int y = in.readInt();
+                int z = in.readInt();
+                removeByLocation(world, x, y, z);
+                break;
+            }
+            case OP_LINK: {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                String name = in.readUTF();
+                int kind = in.readByte();
+                String world = in.readUTF();
+                int x = in.readInt();
+                int y = in.readInt();
+                int z = in.readInt();
+                setLink(uuid, name, kind, new LinkTarget(world, x, y, z));
+                break;
+            }
+            case OP_UNLINK: {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                String name = in.readUTF();
+                setLink(uuid, name, in.readByte(), null);
+                break;
+            }
+            default:
+                throw new IOException("Unknown record type " + op + " in " + file);
+        }
+    }
+
+    private void openForAppend() throws IOException {
+        fileOut = new FileOutputStream(file, true);
+    }
+
+    private void rewrite() throws IOException {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try (FileOutputStream tempOut = new FileOutputStream(temp);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(tempOut))) {
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            for (Map<String, Record> records : byOwner.values()) {
+                for (Record record : records.values()) {
+                    writeAdd(data, record);
+                    for (int kind = 0; kind < record.links.length; kind++) {
+                        if (record.links[kind] != null) {
+                            writeLink(data, record, kind, record.links[kind]);
+                        }
+                    }
+                }
+            }
+            data.flush();
+            tempOut.getFD().sync();
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        loggedRecords = liveRecords;
+    }
+
+    private static void writeAdd(DataOutputStream data, Record record) throws IOException {
+        data.writeByte(OP_ADD);
+        data.writeLong(record.uuid.getMostSignificantBits());
+        data.writeLong(record.uuid.getLeastSignificantBits());
+        data.writeUTF(record.name);
+        data.writeUTF(record.world);
+        data.writeInt(record.x);
+        data.writeInt(record.y);
+        data.writeInt(record.z);
+    }
+
+    private static void writeLink(DataOutputStream data, Record record, int kind, LinkTarget target) throws IOException {
+        data.writeByte(OP_LINK);
+        data.writeLong(record.uuid.getMostSignificantBits());
+        data.writeLong(record.uuid.getLeastSignificantBits());
+        data.writeUTF(record.name);
+        data.writeByte(kind);
+        data.writeUTF(target.world);
+        data.writeInt(target.x);
+        data.writeInt(target.y);
+        data.writeInt(target.z);
+    }
+
+    @Override
+    public synchronized List<StorageMutation> applyMutations(List<StorageMutation> batch) {
+        if (fileOut == null) {
+            logger.severe("Smelter store is closed, cannot persist " + batch.size() + " changes");
+            return batch;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(batch.size() * 48);
+        try {
+            DataOutputStream data = new DataOutputStream(buffer);
+            for (StorageMutation mutation : batch) {
+                encode(data, mutation);
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to encode " + batch.size() + " smelter changes", e);
+            return batch;
+        }
+
+        try {
+            long validLength = fileOut.getChannel().size();
+            try {
+                buffer.writeTo(fileOut);
+                fileOut.getFD().sync();
+            } catch (IOException e) {
+                try {
+                    fileOut.getChannel().truncate(validLength);
+                } catch (IOException truncateFailure) {
+                    e.addSuppressed(truncateFailure);
+                    logger.severe("Could not roll back a partial append to " + file + ", closing the store");
+                    close();
+                }
+                throw e;
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to append " + batch.size() + " smelter changes to " + file, e);
+            return batch;
+        }
+
+        for (StorageMutation mutation : batch) {
+            apply(mutation);
+        }
+        loggedRecords += batch.size();
+
+        if (loggedRecords > COMPACT_THRESHOLD && loggedRecords > liveRecords * 2) {
+            compact();
+        }
+        return Collections.emptyList();
+    }
+
+    private static void encode(DataOutputStream data, StorageMutation mutation) throws IOException {
+        switch (mutation.type) {
+            case ADD:
+                data.writeByte(OP_ADD);
+                data.writeLong(mutation.uuid.getMostSignificantBits());
+                data.writeLong(mutation.uuid.getLeastSignificantBits());
+                data.writeUTF(mutation.name);
+                data.writeUTF(mutation.world);
+                data.writeInt(mutation.x);
+                data.writeInt(mutation.y);
+                data.writeInt(mutation.z);
+                break;
+            case REMOVE:
+                data.writeByte(OP_REMOVE);
+                data.writeLong(mutation.uuid.getMostSignificantBits());
+                data.writeLong(mutation.uuid.getLeastSignificantBits());
+                data.writeUTF(mutation.name);
+                break;
+            case REMOVE_LOCATION:
+                data.writeByte(OP_REMOVE_LOCATION);
+                data.writeUTF(mutation.world);
+                data.writeInt(mutation.x);
+                data.writeInt(mutation.y);
+                data.writeInt(mutation.z);
+                break;
+            case LINK:
+                data.writeByte(OP_LINK);
+                data.writeLong(mutation.uuid.getMostSignificantBits());
+                data.writeLong(mutation.uuid.getLeastSignificantBits());
+                data.writeUTF(mutation.name);
+                data.writeByte(mutation.kind.ordinal());
+                data.writeUTF(mutation.world);
+                data.writeInt(mutation.x);
+                data.writeInt(mutation.y);
+                data.writeInt(mutation.z);
+                break;
+            case UNLINK:
+                data.writeByte(OP_UNLINK);
+                data.writeLong(mutation.uuid.getMostSignificantBits());
+                data.writeLong(mutation.uuid.getLeastSignificantBits());
+                data.writeUTF(mutation.name);
+                data.writeByte(mutation.kind.ordinal());
+                break;
+        }
+    }
+
+    private void apply(StorageMutation mutation) {
+        switch (mutation.type) {
+            case ADD:
+                put(new Record(mutation.uuid, mutation.name, mutation.world, mutation.x, mutation.y, mutation.z));
+                break;
+            case REMOVE:
+                removeByName(mutation.uuid, mutation.name);
+                break;
+            case REMOVE_LOCATION:
+                removeByLocation(mutation.world, mutation.x, mutation.y, mutation.z);
+                break;
+            case LINK:
+                setLink(mutation.uuid, mutation.name, mutation.kind.ordinal(),
+                        new LinkTarget(mutation.world, mutation.x, mutation.y, mutation.z));
+                break;
+            case UNLINK:
+                setLink(mutation.uuid, mutation.name, mutation.kind.ordinal(), null);
+                break;
+        }
+    }
+
+    private void compact() {
+        try {
+            fileOut.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close " + file + " before compaction", e);
+        }
+
+        try {
+            rewrite();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to compact " + file + ", keeping the uncompacted log", e);
+        } finally {
+            try {
+                openForAppend();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Could not reopen " + file + " after compaction", e);
+                fileOut = null;
+            }
+        }
+    }
+
+    private void put(Record record) {
+        Map<String, Record> records = byOwner.computeIfAbsent(record.uuid, k -> new HashMap<>());
+        Record previous = records.put(record.name, record);
+        if (previous != null) {
+            unlinkLocation(previous);
+        } else {
+            liveRecords++;
+        }
+
+        Record displaced = byLocation.computeIfAbsent(record.world, k -> new LongObjectMap<>())
+                .put(SmelterIndex.packBlock(record.x, record.y, record.z), record);
+        if (displaced != null && displaced != previous) {
+            unlinkOwner(displaced);
+        }
+    }
+
+    private void setLink(UUID uuid, String name, int kind, LinkTarget target) {
+        Map<String, Record> records = byOwner.get(uuid);
+        Record record = records == null ? null : records.get(name);
+        if (record != null && kind >= 0 && kind < record.links.length) {
+            record.links[kind] = target;
+        }
+    }
+
+    private void removeByName(UUID uuid, String name) {
+        Map<String, Record> records = byOwner.get(uuid);
+        Record removed = records == null ? null : records.remove(name);
+        if (removed != null) {
+            liveRecords--;
+            unlinkLocation(removed);
+            if (records.isEmpty()) {
+                byOwner.remove(uuid);
+            }
+        }
+    }
+
+    private void removeByLocation(String world, int x, int y, int z) {
+        Record removed = lookup(world, x, y, z);
+        if (removed != null) {
+            removeByName(removed.uuid, removed.name);
+        }
+    }
+
+    private void unlinkLocation(Record record) {
+        LongObjectMap<Record> records = byLocation.get(record.world);
+        long key = SmelterIndex.packBlock(record.x, record.y, record.z);
+        if (records != null && records.get(key) == record) {
+            records.remove(key);
+        }
+    }
+
+    private void unlinkOwner(Record record) {
+        Map<String, Record> records = byOwner.get(record.uuid);
+        if (records != null && records.remove(record.name, record)) {
+            liveRecords--;
+            if (records.isEmpty()) {
+                byOwner.remove(record.uuid);
+            }
+        }
+    }
+
+    private Record lookup(String world, int x, int y, int z) {
+        LongObjectMap<Record> records = byLocation.get(world);
+        return records == null ? null : records.get(SmelterIndex.packBlock(x, y, z));
+    }
+
+    @Override
+    public synchronized Map<UUID, Map<String, RemoteSmelter.SmelterData>> loadAllSmelters() {
+        Map<UUID, Map<String, RemoteSmelter.SmelterData>> result = new HashMap<>();
+        for (Map.Entry<UUID, Map<String, Record>> entry : byOwner.entrySet()) {
+            Map<String, RemoteSmelter.SmelterData> smelters = toSmelterData(entry.getValue());
+            if (!smelters.isEmpty()) {
+                result.put(entry.getKey(), smelters);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<SmelterLink> loadAllLinks() {
+        List<SmelterLink> result = new ArrayList<>();
+        for (Map<String, Record> records : byOwner.values()) {
+            for (Record record : records.values()) {
+                for (int kind = 0; kind < record.links.length; kind++) {
+                    LinkTarget target = record.links[kind];
+                    World world = target == null ? null : Bukkit.getWorld(target.world);
+                    if (world == null) {
+                        continue;
+                    }
+                    result.add(new SmelterLink(record.uuid, record.name, SmelterLink.Kind.byId(kind),
+                            new Location(world, target.x, target.y, target.z)));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, RemoteSmelter.SmelterData> getPlayerSmelters(UUID playerUUID) {
+        return toSmelterData(byOwner.getOrDefault(playerUUID, Collections.emptyMap()));
+    }
+
+    private static Map<String, RemoteSmelter.SmelterData> toSmelterData(Map<String, Record> records) {
+        Map<String, RemoteSmelter.SmelterData> result = new HashMap<>();
+        for (Record record : records.values()) {
+            World world = Bukkit.getWorld(record.world);
+            if (world == null) {
+                continue;
+            }
+            Location loc = new Location(world, record.x, record.y, record.z);
+            result.put(record.name, new RemoteSmelter.SmelterData(record.uuid, record.name, loc));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean smelterExists(UUID playerUUID, String name) {
+        Map<String, Record> records = byOwner.get(playerUUID);
+        return records != null && records.containsKey(name);
+    }
+
+    @Override
+    public synchronized boolean isLocationRegistered(Location location) {
+        return getSmelterOwner(location) != null;
+    }
+
+    @Override
+    public synchronized Map.Entry<UUID, String> getSmelterOwner(Location location) {
+        Record record = lookup(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        return record == null ? null : new AbstractMap.SimpleEntry<>(record.uuid, record.name);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fileOut == null) {
+            return;
+        }
+
+        try {
+            fileOut.getFD().sync();
+            fileOut.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        fileOut = null;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private static class Record {
+        final UUID uuid;
+        final String name;
+        final String world;
+        final int x;
+        final int y;
+        final int z;
+        final LinkTarget[] links = new LinkTarget[SmelterLink.Kind.values().length];
+
+        Record(UUID uuid, String name, String world, int x, int y, int z) {
+            this.uuid = uuid;
+            this.name = name;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    private static class LinkTarget {
+        final String world;
+        final int x;
+        final int y;
+        final int z;
+
+        LinkTarget(String world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.Lino.remoteSmelter;
+
+import java.util.*;
+
+public class ChunkBatchTask implements Runnable {
+
+    public interface Step {
+        boolean process(RemoteSmelter.SmelterData data);
+    }
+
+    private final PlatformScheduler platform;
+    private final Iterator<List<RemoteSmelter.SmelterData>> groups;
+    private final int chunksPerTick;
+    private final Step step;
+    private final Runnable onComplete;
+    private PlatformScheduler.Task handle;
+    private boolean finished;
+
+    public ChunkBatchTask(PlatformScheduler platform, Collection<RemoteSmelter.SmelterData> smelters, int chunksPerTick,
+                          Step step, Runnable onComplete) {
+        this.platform = platform;
+        this.groups = groupByChunk(smelters).iterator();
+        this.chunksPerTick = Math.max(1, chunksPerTick);
+        this.step = step;
+        this.onComplete = onComplete;
+    }
+
+    static List<List<RemoteSmelter.SmelterData>> groupByChunk(Collection<RemoteSmelter.SmelterData> smelters) {
+        LongObjectMap<LongObjectMap<List<RemoteSmelter.SmelterData>>> worlds = new LongObjectMap<>();
+        for (RemoteSmelter.SmelterData data : smelters) {
+            LongObjectMap<List<RemoteSmelter.SmelterData>> chunks = worlds.get(data.worldId);
+            if (chunks == null) {
+                chunks = new LongObjectMap<>();
+                worlds.put(data.worldId, chunks);
+            }
+            long key = SmelterIndex.packChunk(data.getX() >> 4, data.getZ() >> 4);
+
+            List<RemoteSmelter.SmelterData> group = chunks.get(key);
+            if (group == null) {
+                group = new ArrayList<>(4);
+                chunks.put(key, group);
+            }
+            group.add(data);
+        }
+
+        List<List<RemoteSmelter.SmelterData>> result = new ArrayList<>();
+        worlds.forEachValue(chunks -> chunks.forEachValue(result::add));
+        return result;
+    }
+
+    public void start() {
+        handle = platform.runGlobalTimer(this, 0L, 1L);
+    }
+
+    @Override
+    public void run() {
+        for (int processed = 0; processed < chunksPerTick && groups.hasNext(); processed++) {
+            if (!processGroup(groups.next())) {
+                finish();
+                return;
+            }
+        }
+
+        if (!groups.hasNext()) {
+            finish();
+        }
+    }
+
+    private boolean processGroup(List<RemoteSmelter.SmelterData> group) {
+        for (RemoteSmelter.SmelterData data : group) {
+            if (!step.process(data)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (handle != null) {
+            handle.cancel();
+        }
+        onComplete.run();
+    }
+}
@@ -0,0 +1,12 @@
+package com.Lino.remoteSmelter;
+
+public class ConfigMenu extends MenuHolder {
+
+    static final int ECONOMY_SLOT = 11;
+    static final int GROUPS_SLOT = 13;
+    static final int SAVE_SLOT = 15;
+
+    public ConfigMenu(String title) {
+        super(27, title);
+    }
+}
@@ -1,231 +1,279 @@
 package com.Lino.remoteSmelter;
 
-import org.bukkit.Bukkit;
-import org.bukkit.Location;
+import org.bukkit.configuration.file.FileConfiguration;
 
 import java.io.File;
-import java.sql.*;
+import java.io.IOException;
 import java.util.*;
 
 public class DatabaseManager {
 
+    private static final int CHANGE_BATCH = 500;
+
     private final RemoteSmelter plugin;
-    private Connection connection;
-    private final String dbFile;
+    private final String origin = UUID.randomUUID().toString();
+    private SmelterStorage storage;
+    private WriteBehindQueue<StorageMutation> writeQueue;
+    private final PerformanceMetrics.Timer addTimer;
+    private final PerformanceMetrics.Timer removeTimer;
+    private final PerformanceMetrics.Timer writeBatchTimer;
+    private final PerformanceMetrics.Timer flushTimer;
+    private final PerformanceMetrics.Timer loadAllTimer;
+    private final PerformanceMetrics.Timer linkTimer;
+    private final PerformanceMetrics.Timer loadLinksTimer;
+    private final PerformanceMetrics.Timer pollChangesTimer;
+    private final PerformanceMetrics.Timer snapshotLoadTimer;
+    private final PerformanceMetrics.Timer snapshotWriteTimer;
+    private File storageFile;
+    private RegistrySnapshot snapshot;
+    private long snapshotStamp;
+    private JdbcStorage changeLog;
+    private long lastChangeSeq;
+    private long gapSince;
+    private long gapTimeoutMillis;
+    private long retentionMillis;
+    private long nextPrune;
 
     public DatabaseManager(RemoteSmelter plugin) {
         this.plugin = plugin;
-        this.dbFile = plugin.getDataFolder() + File.separator + "smelters.db";
+
+        PerformanceMetrics metrics = plugin.getMetrics();
+        this.addTimer = metrics.timer("db_add_smelter");
+        this.removeTimer = metrics.timer("db_remove_smelter");
+        this.writeBatchTimer = metrics.timer("db_write_batch");
+        this.flushTimer = metrics.timer("db_flush");
+        this.loadAllTimer = metrics.timer("db_load_all_smelters");
+        this.linkTimer = metrics.timer("db_link_smelter");
+        this.loadLinksTimer = metrics.timer("db_load_all_links");
+        this.pollChangesTimer = metrics.timer("db_poll_changes");
+        this.snapshotLoadTimer = metrics.timer("snapshot_load");
+        this.snapshotWriteTimer = metrics.timer("snapshot_write");
     }
 
-    public void initialize() throws SQLException {
+    public void initialize() throws StorageException {
         File dataFolder = plugin.getDataFolder();
         if (!dataFolder.exists()) {
             dataFolder.mkdirs();
         }
 
-        connect();
-        createTables();
-    }
-
-    private void connect() throws SQLException {
-        if (connection != null && !connection.isClosed()) {
-            return;
+        FileConfiguration config = plugin.getConfig();
+        boolean shared = config.getBoolean("storage.shared.enabled", false);
+        storage = createStorage(config.getString("storage.type", "sqlite"), dataFolder, config, shared);
+        if (shared && !(storage instanceof JdbcStorage)) {
+            throw new StorageException("storage.shared requires sqlite or h2 storage");
         }
 
-        connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
-    }
-
-    private void createTables() throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS smelters (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "uuid TEXT NOT NULL," +
-                "name TEXT NOT NULL," +
-                "world TEXT NOT NULL," +
-                "x INTEGER NOT NULL," +
-                "y INTEGER NOT NULL," +
-                "z INTEGER NOT NULL," +
-                "UNIQUE(uuid, name))";
+        snapshotStamp = storageStamp();
+        storage.initialize();
+        RegistrySnapshot registrySnapshot = new RegistrySnapshot(new File(dataFolder, "registry.snapshot"));
+        if (!shared && config.getBoolean("storage.snapshot.enabled", true)) {
+            snapshot = registrySnapshot;
+        } else {
+            registrySnapshot.delete();
+        }
 
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(sql);
+        if (shared) {
+            changeLog = (JdbcStorage) storage;
+            changeLog.enableChangeLog(origin);
+            lastChangeSeq = changeLog.getLatestChangeSeq();
+            gapTimeoutMillis = config.getLong("storage.shared.gap-timeout-ms", 5000L);
+            retentionMillis = config.getLong("storage.shared.retention-hours", 24L) * 3_600_000L;
         }
+
+        writeQueue = new WriteBehindQueue<>(this::writeBatch, plugin.getLogger(),
+                config.getInt("storage.write-behind.max-queue-depth", 1000),
+                config.getLong("storage.write-behind.flush-interval-ms", 1000L));
+        writeQueue.start("RemoteSmelter-Writer");
     }
 
-    public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+    private SmelterStorage createStorage(String type, File dataFolder, FileConfiguration config, boolean shared)
+            throws StorageException {
+        String sharedFile = shared ? config.getString("storage.shared.file", "") : "";
+        switch (type.toLowerCase()) {
+            case "sqlite":
+                storageFile = sharedFile.isEmpty() ? new File(dataFolder, "smelters.db") : new File(sharedFile);
+                return new SqliteStorage(storageFile, plugin.getLogger());
+            case "h2": {
+                File file = sharedFile.isEmpty() ? new File(dataFolder, "smelters") : new File(sharedFile);
+                storageFile = new File(file.getPath() + ".mv.db");
+                return new H2Storage(file, plugin.getLogger(), config.getInt("storage.h2.pool-size", 4), shared);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            case "binary":
+                storageFile = new File(dataFolder, "smelters.bin");
+                return new BinaryFileStorage(dataFolder, plugin.getLogger());
+            default:
+                throw new StorageException("Unknown storage type '" + type + "', expected sqlite, h2 or binary");
         }
     }
 
-    public boolean addSmelter(UUID playerUUID, String name, Location location) {
-        String sql = "INSERT INTO smelters (uuid, name, world, x, y, z) VALUES (?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID.toString());
-            pstmt.setString(2, name);
-            pstmt.setString(3, location.getWorld().getName());
-            pstmt.setInt(4, location.getBlockX());
-            pstmt.setInt(5, location.getBlockY());
-            pstmt.setInt(6, location.getBlockZ());
-            pstmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            return false;
+    private List<StorageMutation> writeBatch(List<StorageMutation> batch) {
+        long start = System.nanoTime();
+        try {
+            List<StorageMutation> ordered = new ArrayList<>(batch);
+            ordered.sort(Comparator.comparingInt(mutation -> mutation.type.phase));
+            return storage.applyMutations(ordered);
+        } finally {
+            writeBatchTimer.record(System.nanoTime() - start);
         }
     }
 
-    public boolean removeSmelter(UUID playerUUID, String name) {
-        String sql = "DELETE FROM smelters WHERE uuid = ? AND name = ?";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID.toString());
-            pstmt.setString(2, name);
-            return pstmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+    public void flush() {
+        if (writeQueue != null) {
+            long start = System.nanoTime();
+            writeQueue.flush();
+            flushTimer.record(System.nanoTime() - start);
         }
     }
 
-    public void removeSmelterByLocation(Location location) {
-        String sql = "DELETE FROM smelters WHERE world = ? AND x = ? AND y = ? AND z = ?";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, location.getWorld().getName());
-            pstmt.setInt(2, location.getBlockX());
-            pstmt.setInt(3, location.getBlockY());
-            pstmt.setInt(4, location.getBlockZ());
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    public boolean isShared() {
+        return changeLog != null;
     }
 
-    public Map<UUID, Map<String, RemoteSmelter.SmelterData>> loadAllSmelters() {
-        Map<UUID, Map<String, RemoteSmelter.SmelterData>> result = new HashMap<>();
-        String sql = "SELECT uuid, name, world, x, y, z FROM smelters";
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    public synchronized List<SmelterChange> pollChanges() {
+        if (changeLog == null) {
+            return Collections.emptyList();
+        }
 
-            while (rs.next()) {
-                UUID uuid = UUID.fromString(rs.getString("uuid"));
-                String name = rs.getString("name");
-                String worldName = rs.getString("world");
+        long start = System.nanoTime();
+        try {
+            long now = System.currentTimeMillis();
+            if (retentionMillis > 0 && now >= nextPrune) {
+                changeLog.pruneChanges(now - retentionMillis);
+                nextPrune = now + Math.max(60_000L, retentionMillis / 10);
+            }
 
-                if (Bukkit.getWorld(worldName) == null) {
-                    continue;
+            List<SmelterChange> result = new ArrayList<>();
+            for (SmelterChange change : changeLog.loadChangesSince(lastChangeSeq, CHANGE_BATCH)) {
+                if (change.seq != lastChangeSeq + 1) {
+                    if (gapSince == 0L) {
+                        gapSince = now;
+                    }
+                    if (now - gapSince < gapTimeoutMillis) {
+                        break;
+                    }
                 }
+                gapSince = 0L;
+                lastChangeSeq = change.seq;
 
-                Location loc = new Location(
-                        Bukkit.getWorld(worldName),
-                        rs.getInt("x"),
-                        rs.getInt("y"),
-                        rs.getInt("z")
-                );
-
-                result.computeIfAbsent(uuid, k -> new HashMap<>())
-                        .put(name, new RemoteSmelter.SmelterData(name, loc));
+                if (change.mutation != null && !origin.equals(change.origin)) {
+                    result.add(change);
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return result;
+        } finally {
+            pollChangesTimer.record(System.nanoTime() - start);
         }
-
-        return result;
     }
 
-    public Map<String, RemoteSmelter.SmelterData> getPlayerSmelters(UUID playerUUID) {
-        Map<String, RemoteSmelter.SmelterData> result = new HashMap<>();
-        String sql = "SELECT name, world, x, y, z FROM smelters WHERE uuid = ?";
-
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID.toString());
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    String name = rs.getString("name");
-                    String worldName = rs.getString("world");
-
-                    if (Bukkit.getWorld(worldName) == null) {
-                        continue;
-                    }
+    private long storageStamp() {
+        return storageFile.lastModified() * 31L + storageFile.length();
+    }
 
-                    Location loc = new Location(
-                            Bukkit.getWorld(worldName),
-                            rs.getInt("x"),
-                            rs.getInt("y"),
-                            rs.getInt("z")
-                    );
+    public Map<UUID, Map<String, RemoteSmelter.SmelterData>> loadSnapshot(Collection<String> loadedWorlds) {
+        if (snapshot == null) {
+            return null;
+        }
 
-                    result.put(name, new RemoteSmelter.SmelterData(name, loc));
-                }
+        long start = System.nanoTime();
+        try {
+            return snapshot.read(snapshotStamp, loadedWorlds);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Ignoring registry snapshot: " + e.getMessage());
+            return null;
+        } finally {
+            if (!snapshot.delete()) {
+                plugin.getLogger().warning("Could not delete the registry snapshot, it will be rewritten on shutdown");
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            snapshotLoadTimer.record(System.nanoTime() - start);
         }
-
-        return result;
     }
 
-    public boolean smelterExists(UUID playerUUID, String name) {
-        String sql = "SELECT COUNT(*) FROM smelters WHERE uuid = ? AND name = ?";
+    private void writeSnapshot(Collection<String> coveredWorlds, Collection<RemoteSmelter.SmelterData> smelters) {
+        long start = System.nanoTime();
+        try {
+            snapshot.write(storageStamp(), coveredWorlds, smelters);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write registry snapshot: " + e.getMessage());
+            snapshot.delete();
+        } finally {
+            snapshotWriteTimer.record(System.nanoTime() - start);
+        }
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, playerUUID.toString());
-            pstmt.setString(2, name);
+    public int getQueueDepth() {
+        WriteBehindQueue<StorageMutation> queue = writeQueue;
+        return queue == null ? 0 : queue.size();
+    }
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() && rs.getInt(1) > 0;
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+    public void close(Collection<String> coveredWorlds, Collection<RemoteSmelter.SmelterData> smelters) {
+        synchronized (this) {
+            changeLog = null;
         }
-    }
 
-    public boolean isLocationRegistered(Location location) {
-        String sql = "SELECT COUNT(*) FROM smelters WHERE world = ? AND x = ? AND y = ? AND z = ?";
+        boolean persisted = true;
+        if (writeQueue != null) {
+            persisted = writeQueue.shutdown();
+            writeQueue = null;
+        }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, location.getWorld().getName());
-            pstmt.setInt(2, location.getBlockX());
-            pstmt.setInt(3, location.getBlockY());
-            pstmt.setInt(4, location.getBlockZ());
+        if (storage != null) {
+            storage.close();
+            storage = null;
+        }
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() && rs.getInt(1) > 0;
+        if (snapshot != null) {
+            if (persisted) {
+                writeSnapshot(coveredWorlds, smelters);
+            } else {
+                snapshot.delete();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
         }
     }
 
-    public Map.Entry<UUID, String> getSmelterOwner(Location location) {
-        String sql = "SELECT uuid, name FROM smelters WHERE world = ? AND x = ? AND y = ? AND z = ?";
+    public void addSmelter(RemoteSmelter.SmelterData data) {
+        long start = System.nanoTime();
+        try {
+            writeQueue.enqueue(StorageMutation.add(data));
+        } finally {
+            addTimer.record(System.nanoTime() - start);
+        }
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, location.getWorld().getName());
-            pstmt.setInt(2, location.getBlockX());
-            pstmt.setInt(3, location.getBlockY());
-            pstmt.setInt(4, location.getBlockZ());
+    public void removeSmelter(RemoteSmelter.SmelterData data) {
+        long start = System.nanoTime();
+        try {
+            writeQueue.enqueue(StorageMutation.remove(data));
+        } finally {
+            removeTimer.record(System.nanoTime() - start);
+        }
+    }
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    UUID uuid = UUID.fromString(rs.getString("uuid"));
-                    String name = rs.getString("name");
-                    return new AbstractMap.SimpleEntry<>(uuid, name);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+    public void linkSmelter(RemoteSmelter.SmelterData data, SmelterLink.Kind kind) {
+        long start = System.nanoTime();
+        try {
+            writeQueue.enqueue(StorageMutation.link(data, kind));
+        } finally {
+            linkTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    public List<SmelterLink> loadAllLinks() {
+        long start = System.nanoTime();
+        try {
+            flush();
+            return storage.loadAllLinks();
+        } finally {
+            loadLinksTimer.record(System.nanoTime() - start);
         }
+    }
 
-        return null;
+    public Map<UUID, Map<String, RemoteSmelter.SmelterData>> loadAllSmelters() {
+        long start = System.nanoTime();
+        try {
+            flush();
+            return storage.loadAllSmelters();
+        } finally {
+            loadAllTimer.record(System.nanoTime() - start);
+        }
     }
-}
\ No newline at end of file
+}
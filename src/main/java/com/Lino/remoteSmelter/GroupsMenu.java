@@ -0,0 +1,16 @@
+package com.Lino.remoteSmelter;
+
+public class GroupsMenu extends MenuHolder {
+
+    static final int ADD_SLOT = 53;
+
+    final String[] groups = new String[ADD_SLOT];
+
+    public GroupsMenu(String title) {
+        super(54, title);
+    }
+
+    public String getGroup(int slot) {
+        return slot >= 0 && slot < groups.length ? groups[slot] : null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.Lino.remoteSmelter;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+public class H2Storage extends JdbcStorage {
+
+    private final String url;
+    private final int poolSize;
+    private JdbcConnectionPool pool;
+
+    public H2Storage(File file, Logger logger, int poolSize, boolean autoServer) {
+        super(logger);
+        this.url = "jdbc:h2:file:" + file.getAbsolutePath() + (autoServer ? ";AUTO_SERVER=TRUE" : "");
+        this.poolSize = Math.max(1, poolSize);
+    }
+
+    @Override
+    public void initialize() throws StorageException {
+        try {
+            pool = JdbcConnectionPool.create(url, "sa", "");
+            pool.setMaxConnections(poolSize);
+            migrateSchema();
+        } catch (SQLException e) {
+            throw new StorageException("Could not open H2 database " + url, e);
+        }
+    }
+
+    @Override
+    protected Connection acquire() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("H2 connection pool is closed");
+        }
+        return pool.getConnection();
+    }
+
+    @Override
+    protected void release(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    protected String autoIncrementKey() {
+        return "INTEGER AUTO_INCREMENT PRIMARY KEY";
+    }
+
+    @Override
+    protected String textType(int length) {
+        return "VARCHAR(" + length + ")";
+    }
+
+    @Override
+    protected String uuidType() {
+        return "BINARY(16)";
+    }
+
+    @Override
+    protected String upsertSql() {
+        return "MERGE INTO smelters (uuid, name, world_id, x, y, z) KEY (uuid, name) VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    protected String linkUpsertSql() {
+        return "MERGE INTO smelter_links (smelter_id, kind, world_id, x, y, z) KEY (smelter_id, kind) " +
+                "SELECT id, ?, ?, ?, ?, ? FROM smelters WHERE uuid = ? AND name = ?";
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.dispose();
+            pool = null;
+        }
+    }
+}
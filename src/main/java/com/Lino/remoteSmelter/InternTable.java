@@ -0,0 +1,42 @@
+package com.Lino.remoteSmelter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InternTable<T> {
+
+    private final Map<T, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Object[] values = new Object[16];
+    private int size;
+
+    public synchronized int intern(T value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+
+        Object[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size << 1);
+        }
+        current[size] = value;
+        values = current;
+        ids.put(value, size);
+        return size++;
+    }
+
+    public int indexOf(T value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        return (T) values[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,552 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.nio.ByteBuffer;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public abstract class JdbcStorage implements SmelterStorage {
+
+    protected final Logger logger;
+    private final Map<String, Integer> worldIds = new ConcurrentHashMap<>();
+    private volatile String changeOrigin;
+
+    protected JdbcStorage(Logger logger) {
+        this.logger = logger;
+    }
+
+    protected abstract Connection acquire() throws SQLException;
+
+    protected abstract void release(Connection connection);
+
+    protected abstract String autoIncrementKey();
+
+    protected abstract String textType(int length);
+
+    protected abstract String uuidType();
+
+    protected abstract String upsertSql();
+
+    protected abstract String linkUpsertSql();
+
+    protected void beforeMigration(int fromVersion) {
+    }
+
+    public void enableChangeLog(String origin) {
+        this.changeOrigin = origin;
+    }
+
+    protected String sqlFor(StorageMutation.Type type) {
+        switch (type) {
+            case ADD:
+                return upsertSql();
+            case REMOVE:
+                return "DELETE FROM smelters WHERE uuid = ? AND name = ?";
+            case LINK:
+                return linkUpsertSql();
+            case UNLINK:
+                return "DELETE FROM smelter_links WHERE kind = ? AND smelter_id IN " +
+                        "(SELECT id FROM smelters WHERE uuid = ? AND name = ?)";
+            default:
+                return "DELETE FROM smelters WHERE world_id = ? AND x = ? AND y = ? AND z = ?";
+        }
+    }
+
+    protected void migrateSchema() throws SQLException {
+        Connection connection = acquire();
+        try {
+            SchemaMigrations.migrate(connection, this, logger);
+        } finally {
+            release(connection);
+        }
+    }
+
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    int worldId(Connection connection, String world, boolean create) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT id FROM worlds WHERE name = ?")) {
+            pstmt.setString(1, world);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+
+        if (!create) {
+            return -1;
+        }
+
+        try (PreparedStatement pstmt = connection.prepareStatement("INSERT INTO worlds (name) VALUES (?)")) {
+            pstmt.setString(1, world);
+            pstmt.executeUpdate();
+        }
+        return worldId(connection, world, false);
+    }
+
+    private int cachedWorldId(Connection connection, String world, boolean create) throws SQLException {
+        Integer cached = worldIds.get(world);
+        if (cached != null) {
+            return cached;
+        }
+
+        int id = worldId(connection, world, create);
+        if (id >= 0 && connection.getAutoCommit()) {
+            worldIds.put(world, id);
+        }
+        return id;
+    }
+
+    @Override
+    public List<StorageMutation> applyMutations(List<StorageMutation> batch) {
+        Connection connection;
+        try {
+            connection = acquire();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not obtain a connection to persist smelter changes", e);
+            return batch;
+        }
+
+        try {
+            try {
+                writeTransaction(connection, batch);
+                return Collections.emptyList();
+            } catch (SQLException e) {
+                logger.log(Level.WARNING, "Batched smelter write failed, retrying individually", e);
+            }
+
+            List<StorageMutation> failed = new ArrayList<>();
+            for (StorageMutation mutation : batch) {
+                try {
+                    writeTransaction(connection, Collections.singletonList(mutation));
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "Failed to persist smelter change " + mutation.key(), e);
+                    failed.add(mutation);
+                }
+            }
+            return failed;
+        } finally {
+            release(connection);
+        }
+    }
+
+    private void writeTransaction(Connection connection, List<StorageMutation> batch) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            writeBatch(connection, batch);
+            logChanges(connection, batch);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        try {
+            cacheWorldIds(connection, batch);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Could not cache world ids after a smelter write", e);
+        }
+    }
+
+    private void writeBatch(Connection connection, List<StorageMutation> batch) throws SQLException {
+        Map<StorageMutation.Type, PreparedStatement> statements = new EnumMap<>(StorageMutation.Type.class);
+
+        try {
+            StorageMutation.Type current = null;
+            for (int i = 0; i < batch.size(); i++) {
+                StorageMutation mutation = batch.get(i);
+                if (current != null && current != mutation.type) {
+                    statements.get(current).executeBatch();
+                }
+                if (current != mutation.type && mutation.type == StorageMutation.Type.ADD) {
+                    int end = i;
+                    while (end < batch.size() && batch.get(end).type == StorageMutation.Type.ADD) {
+                        end++;
+                    }
+                    clearPlacements(connection, batch.subList(i, end));
+                }
+                current = mutation.type;
+
+                PreparedStatement pstmt = statements.get(current);
+                if (pstmt == null) {
+                    pstmt = connection.prepareStatement(sqlFor(current));
+                    statements.put(current, pstmt);
+                }
+                bind(connection, pstmt, mutation);
+                pstmt.addBatch();
+            }
+
+            if (current != null) {
+                statements.get(current).executeBatch();
+            }
+        } finally {
+            for (PreparedStatement pstmt : statements.values()) {
+                pstmt.close();
+            }
+        }
+    }
+
+    private void clearPlacements(Connection connection, List<StorageMutation> batch) throws SQLException {
+        String sql = "DELETE FROM smelters WHERE (uuid = ? AND name = ?) OR (world_id = ? AND x = ? AND y = ? AND z = ?)";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (StorageMutation mutation : batch) {
+                pstmt.setBytes(1, toBytes(mutation.uuid));
+                pstmt.setString(2, mutation.name);
+                pstmt.setInt(3, cachedWorldId(connection, mutation.world, false));
+                pstmt.setInt(4, mutation.x);
+                pstmt.setInt(5, mutation.y);
+                pstmt.setInt(6, mutation.z);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private void logChanges(Connection connection, List<StorageMutation> batch) throws SQLException {
+        String origin = changeOrigin;
+        if (origin == null) {
+            return;
+        }
+
+        String sql = "INSERT INTO smelter_changes (origin, type, uuid, name, world, x, y, z, kind, " +
+                "target_world, target_x, target_y, target_z, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        long now = System.currentTimeMillis();
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            for (StorageMutation mutation : batch) {
+                pstmt.setString(1, origin);
+                pstmt.setInt(2, mutation.type.ordinal());
+                pstmt.setBytes(3, mutation.uuid == null ? null : toBytes(mutation.uuid));
+                pstmt.setString(4, mutation.name);
+                pstmt.setString(5, mutation.smelterWorld);
+                pstmt.setInt(6, mutation.smelterX);
+                pstmt.setInt(7, mutation.smelterY);
+                pstmt.setInt(8, mutation.smelterZ);
+                if (mutation.kind == null) {
+                    pstmt.setNull(9, Types.INTEGER);
+                } else {
+                    pstmt.setInt(9, mutation.kind.ordinal());
+                }
+                pstmt.setString(10, mutation.type == StorageMutation.Type.LINK ? mutation.world : null);
+                pstmt.setInt(11, mutation.x);
+                pstmt.setInt(12, mutation.y);
+                pstmt.setInt(13, mutation.z);
+                pstmt.setLong(14, now);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    public long getLatestChangeSeq() {
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(seq) FROM smelter_changes")) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0L;
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+    }
+
+    public List<SmelterChange> loadChangesSince(long seq, int limit) {
+        List<SmelterChange> result = new ArrayList<>();
+        String sql = "SELECT seq, origin, type, uuid, name, world, x, y, z, kind, target_world, target_x, target_y, target_z " +
+                "FROM smelter_changes WHERE seq > ? ORDER BY seq LIMIT ?";
+        StorageMutation.Type[] types = StorageMutation.Type.values();
+
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setLong(1, seq);
+                pstmt.setInt(2, limit);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int type = rs.getInt("type");
+                        byte[] uuid = rs.getBytes("uuid");
+                        int kind = rs.getInt("kind");
+                        boolean hasKind = !rs.wasNull();
+
+                        StorageMutation mutation = type < 0 || type >= types.length ? null : new StorageMutation(
+                                types[type], uuid == null ? null : fromBytes(uuid), rs.getString("name"),
+                                rs.getString("target_world"), rs.getInt("target_x"), rs.getInt("target_y"),
+                                rs.getInt("target_z"), hasKind ? SmelterLink.Kind.byId(kind) : null,
+                                rs.getString("world"), rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
+                        result.add(new SmelterChange(rs.getLong("seq"), rs.getString("origin"), mutation));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+
+        return result;
+    }
+
+    public int pruneChanges(long olderThan) {
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (PreparedStatement pstmt = connection.prepareStatement("DELETE FROM smelter_changes WHERE created_at < ?")) {
+                pstmt.setLong(1, olderThan);
+                return pstmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+    }
+
+    private void cacheWorldIds(Connection connection, List<StorageMutation> batch) throws SQLException {
+        for (StorageMutation mutation : batch) {
+            if ((mutation.type == StorageMutation.Type.ADD || mutation.type == StorageMutation.Type.LINK)
+                    && !worldIds.containsKey(mutation.world)) {
+                cachedWorldId(connection, mutation.world, false);
+            }
+        }
+    }
+
+    protected void bind(Connection connection, PreparedStatement pstmt, StorageMutation mutation) throws SQLException {
+        switch (mutation.type) {
+            case ADD:
+                pstmt.setBytes(1, toBytes(mutation.uuid));
+                pstmt.setString(2, mutation.name);
+                pstmt.setInt(3, cachedWorldId(connection, mutation.world, true));
+                pstmt.setInt(4, mutation.x);
+                pstmt.setInt(5, mutation.y);
+                pstmt.setInt(6, mutation.z);
+                break;
+            case REMOVE:
+                pstmt.setBytes(1, toBytes(mutation.uuid));
+                pstmt.setString(2, mutation.name);
+                break;
+            case REMOVE_LOCATION:
+                pstmt.setInt(1, cachedWorldId(connection, mutation.world, false));
+                pstmt.setInt(2, mutation.x);
+                pstmt.setInt(3, mutation.y);
+                pstmt.setInt(4, mutation.z);
+                break;
+            case LINK:
+                pstmt.setInt(1, mutation.kind.ordinal());
+                pstmt.setInt(2, cachedWorldId(connection, mutation.world, true));
+                pstmt.setInt(3, mutation.x);
+                pstmt.setInt(4, mutation.y);
+                pstmt.setInt(5, mutation.z);
+                pstmt.setBytes(6, toBytes(mutation.uuid));
+                pstmt.setString(7, mutation.name);
+                break;
+            case UNLINK:
+                pstmt.setInt(1, mutation.kind.ordinal());
+                pstmt.setBytes(2, toBytes(mutation.uuid));
+                pstmt.setString(3, mutation.name);
+                break;
+        }
+    }
+
+    @Override
+    public Map<UUID, Map<String, RemoteSmelter.SmelterData>> loadAllSmelters() {
+        Map<UUID, Map<String, RemoteSmelter.SmelterData>> result = new HashMap<>();
+        String sql = "SELECT s.uuid, s.name, w.name AS world, s.x, s.y, s.z " +
+                "FROM smelters s JOIN worlds w ON w.id = s.world_id";
+
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                while (rs.next()) {
+                    UUID uuid = fromBytes(rs.getBytes("uuid"));
+                    String name = rs.getString("name");
+                    World world = Bukkit.getWorld(rs.getString("world"));
+
+                    if (world == null) {
+                        continue;
+                    }
+
+                    Location loc = new Location(world, rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
+                    result.computeIfAbsent(uuid, k -> new HashMap<>())
+                            .put(name, new RemoteSmelter.SmelterData(uuid, name, loc));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<SmelterLink> loadAllLinks() {
+        List<SmelterLink> result = new ArrayList<>();
+        String sql = "SELECT s.uuid, s.name, l.kind, w.name AS world, l.x, l.y, l.z " +
+                "FROM smelter_links l JOIN smelters s ON s.id = l.smelter_id JOIN worlds w ON w.id = l.world_id";
+
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                while (rs.next()) {
+                    SmelterLink.Kind kind = SmelterLink.Kind.byId(rs.getInt("kind"));
+                    World world = Bukkit.getWorld(rs.getString("world"));
+
+                    if (kind == null || world == null) {
+                        continue;
+                    }
+
+                    Location target = new Location(world, rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
+                    result.add(new SmelterLink(fromBytes(rs.getBytes("uuid")), rs.getString("name"), kind, target));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, RemoteSmelter.SmelterData> getPlayerSmelters(UUID playerUUID) {
+        Map<String, RemoteSmelter.SmelterData> result = new HashMap<>();
+        String sql = "SELECT s.name, w.name AS world, s.x, s.y, s.z " +
+                "FROM smelters s JOIN worlds w ON w.id = s.world_id WHERE s.uuid = ?";
+
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setBytes(1, toBytes(playerUUID));
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String name = rs.getString("name");
+                        World world = Bukkit.getWorld(rs.getString("world"));
+
+                        if (world == null) {
+                            continue;
+                        }
+
+                        Location loc = new Location(world, rs.getInt("x"), rs.getInt("y"), rs.getInt("z"));
+                        result.put(name, new RemoteSmelter.SmelterData(playerUUID, name, loc));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean smelterExists(UUID playerUUID, String name) {
+        String sql = "SELECT COUNT(*) FROM smelters WHERE uuid = ? AND name = ?";
+
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setBytes(1, toBytes(playerUUID));
+                pstmt.setString(2, name);
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() && rs.getInt(1) > 0;
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+    }
+
+    @Override
+    public boolean isLocationRegistered(Location location) {
+        return getSmelterOwner(location) != null;
+    }
+
+    @Override
+    public Map.Entry<UUID, String> getSmelterOwner(Location location) {
+        String sql = "SELECT s.uuid, s.name FROM smelters s JOIN worlds w ON w.id = s.world_id " +
+                "WHERE w.name = ? AND s.x = ? AND s.y = ? AND s.z = ?";
+
+        Connection connection = null;
+        try {
+            connection = acquire();
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, location.getWorld().getName());
+                pstmt.setInt(2, location.getBlockX());
+                pstmt.setInt(3, location.getBlockY());
+                pstmt.setInt(4, location.getBlockZ());
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        UUID uuid = fromBytes(rs.getBytes("uuid"));
+                        String name = rs.getString("name");
+                        return new AbstractMap.SimpleEntry<>(uuid, name);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.Lino.remoteSmelter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+public class LimitCache {
+
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private long ttlMillis;
+
+    public LimitCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        entries.clear();
+    }
+
+    public int get(UUID uuid, IntSupplier resolver) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(uuid);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(uuid, entry);
+        } else if (now < entry.expiresAt) {
+            return entry.limit;
+        }
+
+        entry.limit = resolver.getAsInt();
+        entry.expiresAt = ttlMillis > 0 ? now + ttlMillis : Long.MAX_VALUE;
+        return entry.limit;
+    }
+
+    public void invalidate(UUID uuid) {
+        entries.remove(uuid);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        int limit;
+        long expiresAt;
+    }
+}
@@ -0,0 +1,23 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+public abstract class MenuHolder implements InventoryHolder {
+
+    protected final Inventory inventory;
+
+    protected MenuHolder(int size, String title) {
+        this.inventory = Bukkit.createInventory(this, size, title);
+    }
+
+    public boolean isTopSlot(int rawSlot) {
+        return rawSlot >= 0 && rawSlot < inventory.getSize();
+    }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
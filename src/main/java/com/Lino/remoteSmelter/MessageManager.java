@@ -15,13 +15,19 @@ public class MessageManager {
     private final RemoteSmelter plugin;
     private FileConfiguration messagesConfig;
     private File messagesFile;
-    private final Map<String, String> messages = new HashMap<>();
+    private final Map<String, MessageTemplate> messages = new HashMap<>();
 
     public MessageManager(RemoteSmelter plugin) {
         this.plugin = plugin;
         loadMessages();
     }
 
+    MessageManager(FileConfiguration messagesConfig) {
+        this.plugin = null;
+        this.messagesConfig = messagesConfig;
+        cacheMessages();
+    }
+
     private void loadMessages() {
         messagesFile = new File(plugin.getDataFolder(), "messages.yml");
 
@@ -30,10 +36,14 @@ public class MessageManager {
         }
 
         messagesConfig = YamlConfiguration.loadConfiguration(messagesFile);
+        cacheMessages();
+    }
 
+    private void cacheMessages() {
         for (String key : messagesConfig.getKeys(true)) {
             if (!messagesConfig.isConfigurationSection(key)) {
-                messages.put(key, ChatColor.translateAlternateColorCodes('&', messagesConfig.getString(key)));
+                messages.put(key, MessageTemplate.compile(
+                        ChatColor.translateAlternateColorCodes('&', messagesConfig.getString(key))));
             }
         }
     }
@@ -43,27 +53,24 @@ public class MessageManager {
         loadMessages();
     }
 
-    public String getMessage(String key) {
-        return messages.getOrDefault(key, "&cMessage not found: " + key);
+    public MessageTemplate getTemplate(String key) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template : MessageTemplate.compile("&cMessage not found: " + key);
     }
 
-    public String getMessage(String key, String... replacements) {
-        String message = getMessage(key);
-
-        if (replacements.length % 2 == 0) {
-            for (int i = 0; i < replacements.length; i += 2) {
-                message = message.replace(replacements[i], replacements[i + 1]);
-            }
-        }
+    public String getMessage(String key) {
+        return getTemplate(key).render();
+    }
 
-        return message;
+    public String getMessage(String key, Object... replacements) {
+        return getTemplate(key).render(replacements);
     }
 
     public void sendMessage(Player player, String key) {
         player.sendMessage(getMessage(key));
     }
 
-    public void sendMessage(Player player, String key, String... replacements) {
+    public void sendMessage(Player player, String key, Object... replacements) {
         player.sendMessage(getMessage(key, replacements));
     }
 }
\ No newline at end of file
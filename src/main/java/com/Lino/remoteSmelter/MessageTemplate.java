@@ -0,0 +1,110 @@
+package com.Lino.remoteSmelter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class MessageTemplate {
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final String source;
+    private final String[] literals;
+    private final String[] placeholders;
+
+    private MessageTemplate(String source, String[] literals, String[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+    }
+
+    public static MessageTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+
+        int literalStart = 0;
+        int open = source.indexOf('{');
+        while (open >= 0) {
+            int close = source.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            if (isPlaceholderName(source, open + 1, close)) {
+                literals.add(source.substring(literalStart, open));
+                placeholders.add(source.substring(open, close + 1));
+                literalStart = close + 1;
+                open = source.indexOf('{', literalStart);
+            } else {
+                open = source.indexOf('{', open + 1);
+            }
+        }
+        literals.add(source.substring(literalStart));
+
+        return new MessageTemplate(source, literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    private static boolean isPlaceholderName(String source, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String render() {
+        return source;
+    }
+
+    public String render(Object... replacements) {
+        if (placeholders.length == 0 || replacements.length == 0 || replacements.length % 2 != 0) {
+            return source;
+        }
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            String placeholder = placeholders[i];
+            int index = indexOf(replacements, placeholder);
+            if (index < 0) {
+                builder.append(placeholder);
+            } else {
+                append(builder, replacements[index + 1]);
+            }
+            builder.append(literals[i + 1]);
+        }
+        return builder.toString();
+    }
+
+    private static int indexOf(Object[] replacements, String placeholder) {
+        for (int i = 0; i < replacements.length; i += 2) {
+            if (placeholder.equals(replacements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void append(StringBuilder builder, Object value) {
+        if (value instanceof String) {
+            builder.append((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            builder.append(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            builder.append((double) (Double) value);
+        } else if (value instanceof Float) {
+            builder.append((float) (Float) value);
+        } else {
+            builder.append(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,151 @@
+package com.Lino.remoteSmelter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PerformanceMetrics {
+
+    private static final int BUCKETS = 21;
+
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public Map<String, Timer> getTimers() {
+        return timers;
+    }
+
+    public Map<String, LongAdder> getCounters() {
+        return counters;
+    }
+
+    public void reset() {
+        for (Timer timer : timers.values()) {
+            timer.reset();
+        }
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+    }
+
+    static long bucketBoundNanos(int bucket) {
+        return 1000L << bucket;
+    }
+
+    public void writePrometheus(File file, Map<String, Double> gauges) throws IOException {
+        StringBuilder out = new StringBuilder(4096);
+
+        out.append("# HELP remotesmelter_latency_seconds Time spent in instrumented RemoteSmelter operations.\n");
+        out.append("# TYPE remotesmelter_latency_seconds histogram\n");
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            String op = entry.getKey();
+            Timer timer = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                cumulative += timer.buckets.get(i);
+                out.append("remotesmelter_latency_seconds_bucket{op=\"").append(op).append("\",le=\"")
+                        .append(bucketBoundNanos(i) / 1e9).append("\"} ").append(cumulative).append('\n');
+            }
+            out.append("remotesmelter_latency_seconds_bucket{op=\"").append(op).append("\",le=\"+Inf\"} ")
+                    .append(timer.getCount()).append('\n');
+            out.append("remotesmelter_latency_seconds_sum{op=\"").append(op).append("\"} ")
+                    .append(timer.total.sum() / 1e9).append('\n');
+            out.append("remotesmelter_latency_seconds_count{op=\"").append(op).append("\"} ")
+                    .append(timer.getCount()).append('\n');
+        }
+
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            String name = "remotesmelter_" + entry.getKey() + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(entry.getValue().sum()).append('\n');
+        }
+
+        for (Map.Entry<String, Double> entry : gauges.entrySet()) {
+            String name = "remotesmelter_" + entry.getKey();
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(entry.getValue()).append('\n');
+        }
+
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)) {
+            writer.write(out.toString());
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static class Timer {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder overflow = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+        public void record(long nanos) {
+            long micros = (nanos + 999L) / 1000L;
+            int bucket = micros <= 1L ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1L);
+
+            if (bucket < BUCKETS) {
+                buckets.incrementAndGet(bucket);
+            } else {
+                overflow.increment();
+            }
+            count.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getAverageMillis() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : total.sum() / 1e6 / n;
+        }
+
+        public double getMaxMillis() {
+            return max.get() / 1e6;
+        }
+
+        public double getPercentileMillis(double quantile) {
+            long n = count.sum();
+            if (n == 0) {
+                return 0.0;
+            }
+
+            long target = (long) Math.ceil(n * quantile);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                cumulative += buckets.get(i);
+                if (cumulative >= target) {
+                    return bucketBoundNanos(i) / 1e6;
+                }
+            }
+            return getMaxMillis();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0L);
+            }
+            overflow.reset();
+            count.reset();
+            total.reset();
+            max.reset();
+        }
+    }
+}
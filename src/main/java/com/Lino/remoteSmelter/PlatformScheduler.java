@@ -0,0 +1,30 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+public interface PlatformScheduler {
+
+    interface Task {
+        void cancel();
+    }
+
+    void runGlobal(Runnable task);
+
+    Task runGlobalLater(Runnable task, long delayTicks);
+
+    Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+    void runAsync(Runnable task);
+
+    Task runAsyncTimer(Runnable task, long delayTicks, long periodTicks);
+
+    void runAt(World world, int chunkX, int chunkZ, Runnable task);
+
+    void runFor(Entity entity, Runnable task);
+
+    static PlatformScheduler create(Plugin plugin) {
+        return new BukkitPlatformScheduler(plugin);
+    }
+}
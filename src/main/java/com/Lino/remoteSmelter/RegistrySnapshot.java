@@ -0,0 +1,205 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class RegistrySnapshot {
+
+    private static final int MAGIC = 0x52534E50;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int TRAILER_SIZE = 8;
+
+    private final File file;
+
+    public RegistrySnapshot(File file) {
+        this.file = file;
+    }
+
+    public void write(long stamp, Collection<String> coveredWorlds, Collection<RemoteSmelter.SmelterData> smelters)
+            throws IOException {
+        Map<String, Integer> worldIds = new LinkedHashMap<>();
+        Map<UUID, Integer> ownerIds = new LinkedHashMap<>();
+        for (String world : coveredWorlds) {
+            worldIds.putIfAbsent(world, worldIds.size());
+        }
+        int covered = worldIds.size();
+        for (RemoteSmelter.SmelterData data : smelters) {
+            ownerIds.putIfAbsent(data.getOwner(), ownerIds.size());
+            worldIds.putIfAbsent(data.getWorldName(), worldIds.size());
+            for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+                int link = data.getLinkWorldId(kind);
+                if (link >= 0) {
+                    worldIds.putIfAbsent(RemoteSmelter.SmelterData.WORLDS.get(link), worldIds.size());
+                }
+            }
+        }
+
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream tempOut = new FileOutputStream(temp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(tempOut), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(stamp);
+            out.writeInt(covered);
+            out.writeInt(smelters.size());
+
+            out.writeInt(worldIds.size());
+            for (String world : worldIds.keySet()) {
+                writeString(out, world);
+            }
+
+            out.writeInt(ownerIds.size());
+            for (UUID owner : ownerIds.keySet()) {
+                out.writeLong(owner.getMostSignificantBits());
+                out.writeLong(owner.getLeastSignificantBits());
+            }
+
+            for (RemoteSmelter.SmelterData data : smelters) {
+                out.writeInt(ownerIds.get(data.getOwner()));
+                writeString(out, data.name);
+                out.writeInt(worldIds.get(data.getWorldName()));
+                out.writeLong(data.block);
+
+                int mask = 0;
+                for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+                    if (data.getLinkWorldId(kind) >= 0) {
+                        mask |= 1 << kind.ordinal();
+                    }
+                }
+                out.writeByte(mask);
+                for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+                    int link = data.getLinkWorldId(kind);
+                    if (link >= 0) {
+                        out.writeInt(worldIds.get(RemoteSmelter.SmelterData.WORLDS.get(link)));
+                        out.writeLong(data.getLinkBlock(kind));
+                    }
+                }
+            }
+
+            out.flush();
+            new DataOutputStream(tempOut).writeLong(checked.getChecksum().getValue());
+            tempOut.getFD().sync();
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Map<UUID, Map<String, RemoteSmelter.SmelterData>> read(long stamp, Collection<String> loadedWorlds)
+            throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file.getName() + " has an invalid size of " + size + " bytes");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int bodyEnd = buffer.limit() - TRAILER_SIZE;
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(bodyEnd);
+        crc.update(body);
+        if (crc.getValue() != buffer.getLong(bodyEnd)) {
+            throw new IOException("Checksum mismatch in snapshot " + file.getName());
+        }
+
+        buffer.limit(bodyEnd);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unrecognised snapshot header in " + file.getName());
+            }
+            if (buffer.getLong() != stamp) {
+                return null;
+            }
+            int covered = buffer.getInt();
+            int count = buffer.getInt();
+
+            int[] worlds = new int[buffer.getInt()];
+            Set<String> coveredWorlds = new HashSet<>();
+            for (int i = 0; i < worlds.length; i++) {
+                String name = readString(buffer);
+                worlds[i] = Bukkit.getWorld(name) == null ? -1 : RemoteSmelter.SmelterData.WORLDS.intern(name);
+                if (i < covered) {
+                    coveredWorlds.add(name);
+                }
+            }
+            if (!coveredWorlds.containsAll(loadedWorlds)) {
+                return null;
+            }
+
+            UUID[] owners = new UUID[buffer.getInt()];
+            int[] ownerIds = new int[owners.length];
+            for (int i = 0; i < owners.length; i++) {
+                owners[i] = new UUID(buffer.getLong(), buffer.getLong());
+                ownerIds[i] = RemoteSmelter.SmelterData.OWNERS.intern(owners[i]);
+            }
+
+            Map<UUID, Map<String, RemoteSmelter.SmelterData>> result = new HashMap<>();
+            SmelterLink.Kind[] kinds = SmelterLink.Kind.values();
+            for (int i = 0; i < count; i++) {
+                int owner = buffer.getInt();
+                String name = readString(buffer);
+                int world = worlds[buffer.getInt()];
+                long block = buffer.getLong();
+                int mask = buffer.get();
+
+                RemoteSmelter.SmelterData data = world < 0 ? null
+                        : new RemoteSmelter.SmelterData(ownerIds[owner], name, world, block);
+                for (SmelterLink.Kind kind : kinds) {
+                    if ((mask & (1 << kind.ordinal())) != 0) {
+                        int linkWorld = worlds[buffer.getInt()];
+                        long target = buffer.getLong();
+                        if (data != null && linkWorld >= 0) {
+                            data.setLink(kind, linkWorld, target);
+                        }
+                    }
+                }
+
+                if (data != null) {
+                    result.computeIfAbsent(owners[owner], k -> new HashMap<>()).put(name, data);
+                }
+            }
+
+            if (buffer.hasRemaining()) {
+                throw new IOException("Trailing data in snapshot " + file.getName());
+            }
+            return result;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated snapshot " + file.getName(), e);
+        }
+    }
+
+    public boolean delete() {
+        return !file.exists() || file.delete();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -3,55 +3,96 @@ package com.Lino.remoteSmelter;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.*;
 import org.bukkit.block.*;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Lightable;
 import org.bukkit.command.*;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.*;
 import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.*;
+import org.bukkit.event.server.ServerLoadEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.inventory.*;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.permissions.Permissible;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
-import java.sql.SQLException;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecutor, TabCompleter {
 
+    static final Set<Material> FURNACE_TYPES = Collections.unmodifiableSet(
+            EnumSet.of(Material.FURNACE, Material.BLAST_FURNACE, Material.SMOKER));
+    private static final Set<String> NAMED_SUBCOMMANDS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("open", "delete", "rename", "link", "unlink")));
+    private static final int MAX_NAME_LENGTH = 32;
+
     private Economy economy;
     private DatabaseManager databaseManager;
     private MessageManager messageManager;
-    private final Map<UUID, Map<String, SmelterData>> playerSmelters = new ConcurrentHashMap<>();
-    private final Map<UUID, String> viewingPlayer = new HashMap<>();
-    private final Map<String, Integer> groupLimits = new HashMap<>();
-    private final Set<UUID> addingGroup = new HashSet<>();
-    private final Set<UUID> settingCost = new HashSet<>();
+    private SmelterIconCache smelterIcons;
+    private final SmelterRegistry playerSmelters = new SmelterRegistry();
+    private final SmelterIndex smelterIndex = new SmelterIndex();
+    private final PerformanceMetrics metrics = new PerformanceMetrics();
+    private final PerformanceMetrics.Timer guiOpenTimer = metrics.timer("gui_open");
+    private final PerformanceMetrics.Timer inventoryClickTimer = metrics.timer("inventory_click");
+    private final PerformanceMetrics.Timer blockBreakTimer = metrics.timer("block_break");
+    private final LongAdder chunkLoadsTriggered = metrics.counter("chunk_loads_triggered");
+    private final VirtualSmeltingEngine virtualSmelting = new VirtualSmeltingEngine();
+    private PlatformScheduler platform;
+    private SmelterScheduler smelterScheduler;
+    private final Map<UUID, Long> offlineSince = new LinkedHashMap<>();
+    private final Map<UUID, String> viewingPlayer = new ConcurrentHashMap<>();
+    private final Map<UUID, SmelterView> openViews = new HashMap<>();
+    private final Map<UUID, ChunkBatchTask> bulkTasks = new HashMap<>();
+    private volatile Map<String, Integer> groupLimits = Collections.emptyMap();
+    private final LimitCache limitCache = new LimitCache(60_000L);
+    private final Set<String> indexedWorlds = new HashSet<>();
+    private final Set<UUID> addingGroup = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> settingCost = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> filteringSmelters = ConcurrentHashMap.newKeySet();
     private double smelterCost = 100.0;
     private boolean useEconomy = false;
+    private boolean virtualSmeltingEnabled = true;
+    private long evictAfterMillis = 300000L;
+    private int maxOfflinePlayers = 100;
+    private int bulkChunksPerTick = 8;
+    private PlatformScheduler.Task metricsExportTask;
+    private PlatformScheduler.Task guiRefreshTask;
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
         saveResource("messages.yml", false);
 
+        platform = PlatformScheduler.create(this);
         messageManager = new MessageManager(this);
+        smelterIcons = new SmelterIconCache(messageManager);
         databaseManager = new DatabaseManager(this);
 
         try {
             databaseManager.initialize();
-        } catch (SQLException e) {
+        } catch (StorageException e) {
             getLogger().severe(messageManager.getMessage("error.database-error"));
             e.printStackTrace();
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
 
+        smelterScheduler = new SmelterScheduler(smelterIndex, this::tickSmelter, this::transferItems, metrics);
         loadConfig();
 
         if (useEconomy && !setupEconomy()) {
@@ -63,20 +104,51 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
         getCommand("remotesmelter").setExecutor(this);
         getCommand("remotesmelter").setTabCompleter(this);
 
-        playerSmelters.putAll(databaseManager.loadAllSmelters());
+        for (World world : Bukkit.getWorlds()) {
+            indexedWorlds.add(world.getName());
+        }
+
+        Map<UUID, Map<String, SmelterData>> stored = databaseManager.loadSnapshot(indexedWorlds);
+        if (stored == null) {
+            stored = databaseManager.loadAllSmelters();
+            for (SmelterLink link : databaseManager.loadAllLinks()) {
+                Map<String, SmelterData> smelters = stored.get(link.owner);
+                SmelterData data = smelters == null ? null : smelters.get(link.smelter);
+                if (data != null) {
+                    data.setLink(link.kind, link.target);
+                }
+            }
+        }
 
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                updateAllSmelters();
+        for (Map<String, SmelterData> smelters : stored.values()) {
+            for (SmelterData data : smelters.values()) {
+                smelterIndex.add(data);
+                if (data.hasLinks()) {
+                    smelterScheduler.addLinked(data);
+                }
             }
-        }.runTaskTimer(this, 20L, 20L);
+        }
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadPlayerSmelters(player.getUniqueId());
+        }
+
+        for (SmelterIndex.ChunkBucket bucket : smelterIndex.getLoadedChunks()) {
+            markLitSmelters(bucket);
+        }
+
+        platform.runGlobalTimer(smelterScheduler, 1L, 1L);
+
+        if (databaseManager.isShared()) {
+            long period = Math.max(1L, getConfig().getLong("storage.shared.poll-interval-ticks", 40L));
+            platform.runAsyncTimer(this::pollSharedChanges, period, period);
+        }
     }
 
     @Override
     public void onDisable() {
         if (databaseManager != null) {
-            databaseManager.close();
+            databaseManager.close(indexedWorlds, smelterIndex.getAllSmelters());
         }
     }
 
@@ -96,20 +168,120 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
         FileConfiguration config = getConfig();
         useEconomy = config.getBoolean("economy.enabled", false);
         smelterCost = config.getDouble("economy.creation-cost", 100.0);
+        virtualSmeltingEnabled = config.getBoolean("virtual-smelting.enabled", true);
+        evictAfterMillis = config.getLong("cache.evict-after-seconds", 300L) * 1000L;
+        maxOfflinePlayers = config.getInt("cache.max-offline-players", 100);
+        bulkChunksPerTick = config.getInt("bulk.chunks-per-tick", 8);
+        smelterScheduler.configure(config.getConfigurationSection("scheduler"));
+        scheduleMetricsExport(config);
+        scheduleGuiRefresh(config.getLong("gui.refresh-ticks", 10L));
+        if (!virtualSmeltingEnabled) {
+            virtualSmelting.clear();
+        }
+        virtualSmelting.invalidateRecipes();
 
-        groupLimits.clear();
+        Map<String, Integer> limits = new LinkedHashMap<>();
         ConfigurationSection groups = config.getConfigurationSection("groups");
         if (groups != null) {
+            for (String group : config.getStringList("group-priority")) {
+                if (groups.contains(group)) {
+                    limits.put(group, groups.getInt(group));
+                }
+            }
             for (String group : groups.getKeys(false)) {
-                groupLimits.put(group, groups.getInt(group));
+                if (!limits.containsKey(group)) {
+                    limits.put(group, groups.getInt(group));
+                }
             }
         }
 
-        if (groupLimits.isEmpty()) {
-            groupLimits.put("default", 5);
-            groupLimits.put("vip", 10);
-            groupLimits.put("admin", -1);
+        if (limits.isEmpty()) {
+            limits.put("admin", -1);
+            limits.put("vip", 10);
+            limits.put("default", 5);
+        }
+        groupLimits = Collections.unmodifiableMap(limits);
+        limitCache.setTtlMillis(config.getLong("cache.limit-ttl-seconds", 60L) * 1000L);
+    }
+
+    public PerformanceMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void scheduleMetricsExport(FileConfiguration config) {
+        if (metricsExportTask != null) {
+            metricsExportTask.cancel();
+            metricsExportTask = null;
+        }
+
+        if (!config.getBoolean("metrics.prometheus.enabled", false)) {
+            return;
+        }
+
+        File file = new File(getDataFolder(), config.getString("metrics.prometheus.file", "metrics.prom"));
+        long period = Math.max(1L, config.getLong("metrics.prometheus.interval-seconds", 30L)) * 20L;
+
+        metricsExportTask = platform.runGlobalTimer(() -> {
+            Map<String, Double> gauges = collectGauges();
+            platform.runAsync(() -> {
+                try {
+                    metrics.writePrometheus(file, gauges);
+                } catch (IOException e) {
+                    getLogger().warning("Could not write metrics to " + file + ": " + e.getMessage());
+                }
+            });
+        }, period, period);
+    }
+
+    private Map<String, Double> collectGauges() {
+        Map<String, Double> gauges = new LinkedHashMap<>();
+        gauges.put("registered_smelters", (double) smelterIndex.size());
+        gauges.put("loaded_smelters", (double) smelterIndex.getLoadedSmelterCount());
+        gauges.put("active_smelters", (double) smelterIndex.getActiveSmelters().size());
+        gauges.put("cached_players", (double) playerSmelters.size());
+        gauges.put("write_queue_depth", (double) databaseManager.getQueueDepth());
+        gauges.put("mspt", smelterScheduler.getMspt());
+        gauges.put("scheduler_budget_scale", smelterScheduler.getBudgetScale());
+        return gauges;
+    }
+
+    private void showStats(Player player, String[] args) {
+        if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            messageManager.sendMessage(player, "commands.stats.reset");
+            return;
+        }
+
+        messageManager.sendMessage(player, "commands.stats.header");
+        for (Map.Entry<String, PerformanceMetrics.Timer> entry : metrics.getTimers().entrySet()) {
+            PerformanceMetrics.Timer timer = entry.getValue();
+            if (timer.getCount() == 0) {
+                continue;
+            }
+            messageManager.sendMessage(player, "commands.stats.timer",
+                    "{NAME}", entry.getKey(),
+                    "{COUNT}", timer.getCount(),
+                    "{AVG}", formatMillis(timer.getAverageMillis()),
+                    "{P50}", formatMillis(timer.getPercentileMillis(0.5)),
+                    "{P99}", formatMillis(timer.getPercentileMillis(0.99)),
+                    "{MAX}", formatMillis(timer.getMaxMillis()));
+        }
+        for (Map.Entry<String, LongAdder> entry : metrics.getCounters().entrySet()) {
+            messageManager.sendMessage(player, "commands.stats.counter",
+                    "{NAME}", entry.getKey(),
+                    "{VALUE}", entry.getValue().sum());
         }
+        messageManager.sendMessage(player, "commands.stats.scheduler",
+                "{MSPT}", formatMillis(smelterScheduler.getMspt()),
+                "{SCALE}", formatMillis(smelterScheduler.getBudgetScale()),
+                "{LOADED}", smelterIndex.getLoadedSmelterCount(),
+                "{ACTIVE}", smelterIndex.getActiveSmelters().size(),
+                "{TOTAL}", smelterIndex.size(),
+                "{QUEUE}", databaseManager.getQueueDepth());
+    }
+
+    private static String formatMillis(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
     }
 
     private void saveConfiguration() {
@@ -121,6 +293,7 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
         for (Map.Entry<String, Integer> entry : groupLimits.entrySet()) {
             config.set("groups." + entry.getKey(), entry.getValue());
         }
+        config.set("group-priority", new ArrayList<>(groupLimits.keySet()));
 
         saveConfig();
     }
@@ -149,7 +322,66 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
                 break;
 
             case "view":
-                openSmelterGUI(player);
+                openSmelterGUI(player, args.length > 1 ? args[1] : "");
+                break;
+
+            case "open":
+                if (args.length < 2) {
+                    messageManager.sendMessage(player, "commands.open.usage");
+                    return true;
+                }
+                SmelterData opened = findSmelter(player, args[1]);
+                if (opened != null) {
+                    openSmelter(player, opened);
+                }
+                break;
+
+            case "delete":
+                if (args.length < 2) {
+                    messageManager.sendMessage(player, "commands.delete.usage");
+                    return true;
+                }
+                SmelterData deleted = findSmelter(player, args[1]);
+                if (deleted != null) {
+                    removeSmelter(deleted);
+                    messageManager.sendMessage(player, "smelter.deleted", "{NAME}", deleted.name);
+                }
+                break;
+
+            case "rename":
+                if (args.length < 3) {
+                    messageManager.sendMessage(player, "commands.rename.usage");
+                    return true;
+                }
+                renameSmelter(player, args[1], args[2]);
+                break;
+
+            case "collect":
+                collectOutputs(player);
+                break;
+
+            case "link":
+                if (args.length < 3 || parseLinkKind(args[2]) == null) {
+                    messageManager.sendMessage(player, "commands.link.usage");
+                    return true;
+                }
+                linkContainer(player, args[1], parseLinkKind(args[2]));
+                break;
+
+            case "unlink":
+                if (args.length < 2 || (args.length > 2 && parseLinkKind(args[2]) == null)) {
+                    messageManager.sendMessage(player, "commands.unlink.usage");
+                    return true;
+                }
+                unlinkContainer(player, args[1], args.length > 2 ? parseLinkKind(args[2]) : null);
+                break;
+
+            case "load":
+                if (args.length < 2 || (!args[1].equalsIgnoreCase("fuel") && !args[1].equalsIgnoreCase("input"))) {
+                    messageManager.sendMessage(player, "commands.load.usage");
+                    return true;
+                }
+                loadHeldStack(player, args[1].equalsIgnoreCase("fuel"));
                 break;
 
             case "limit":
@@ -157,7 +389,15 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
                 break;
 
             case "cost":
-                messageManager.sendMessage(player, "commands.cost.display", "{COST}", String.valueOf(smelterCost));
+                messageManager.sendMessage(player, "commands.cost.display", "{COST}", smelterCost);
+                break;
+
+            case "stats":
+                if (!player.hasPermission("remotesmelter.admin")) {
+                    messageManager.sendMessage(player, "commands.config.no-permission");
+                    return true;
+                }
+                showStats(player, args);
                 break;
 
             case "config":
@@ -169,6 +409,7 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
                     reloadConfig();
                     loadConfig();
                     messageManager.reload();
+                    smelterIcons.clear();
                     messageManager.sendMessage(player, "commands.config.reloaded");
                 } else {
                     openConfigGUI(player);
@@ -186,7 +427,8 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 1) {
-            return Arrays.asList("create", "view", "limit", "cost", "config")
+            return Arrays.asList("create", "view", "open", "delete", "rename", "collect", "load", "link", "unlink", "limit",
+                            "cost", "config", "stats")
                     .stream()
                     .filter(s -> s.startsWith(args[0].toLowerCase()))
                     .collect(Collectors.toList());
@@ -196,6 +438,26 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
             return Collections.singletonList("reload");
         }
 
+        if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            return Collections.singletonList("reset");
+        }
+
+        if (args.length == 2 && args[0].equalsIgnoreCase("load")) {
+            return Arrays.asList("fuel", "input");
+        }
+
+        if (args.length == 2 && NAMED_SUBCOMMANDS.contains(args[0].toLowerCase(Locale.ROOT)) && sender instanceof Player) {
+            List<String> names = playerSmelters.complete(((Player) sender).getUniqueId(), args[1]);
+            if (args[1].isEmpty() && (args[0].equalsIgnoreCase("link") || args[0].equalsIgnoreCase("unlink"))) {
+                names.add(0, "*");
+            }
+            return names;
+        }
+
+        if (args.length == 3 && (args[0].equalsIgnoreCase("link") || args[0].equalsIgnoreCase("unlink"))) {
+            return Arrays.asList("input", "output");
+        }
+
         return Collections.emptyList();
     }
 
@@ -203,25 +465,45 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
         player.sendMessage(messageManager.getMessage("commands.help.header"));
         player.sendMessage(messageManager.getMessage("commands.help.create"));
         player.sendMessage(messageManager.getMessage("commands.help.view"));
+        player.sendMessage(messageManager.getMessage("commands.help.open"));
+        player.sendMessage(messageManager.getMessage("commands.help.delete"));
+        player.sendMessage(messageManager.getMessage("commands.help.rename"));
+        player.sendMessage(messageManager.getMessage("commands.help.collect"));
+        player.sendMessage(messageManager.getMessage("commands.help.load"));
+        player.sendMessage(messageManager.getMessage("commands.help.link"));
+        player.sendMessage(messageManager.getMessage("commands.help.unlink"));
         player.sendMessage(messageManager.getMessage("commands.help.limit"));
         player.sendMessage(messageManager.getMessage("commands.help.cost"));
         if (player.hasPermission("remotesmelter.admin")) {
             player.sendMessage(messageManager.getMessage("commands.help.config"));
+            player.sendMessage(messageManager.getMessage("commands.help.stats"));
+        }
+    }
+
+    private boolean checkSmelterName(Player player, String name) {
+        if (name.length() > MAX_NAME_LENGTH || name.equals("*") || name.indexOf('&') >= 0 || name.indexOf('\u00A7') >= 0) {
+            messageManager.sendMessage(player, "commands.create.invalid-name", "{MAX}", String.valueOf(MAX_NAME_LENGTH));
+            return false;
         }
+        return true;
     }
 
     private void createSmelter(Player player, String name) {
+        if (!checkSmelterName(player, name)) {
+            return;
+        }
+
         Block block = player.getTargetBlock(null, 5);
 
-        if (!(block.getState() instanceof Furnace)) {
+        if (!FURNACE_TYPES.contains(block.getType())) {
             messageManager.sendMessage(player, "commands.create.not-furnace");
             return;
         }
 
         UUID uuid = player.getUniqueId();
-        Map<String, SmelterData> smelters = playerSmelters.computeIfAbsent(uuid, k -> new HashMap<>());
+        Map<String, SmelterData> smelters = getLoadedSmelters(player);
 
-        if (databaseManager.smelterExists(uuid, name)) {
+        if (smelters.containsKey(name)) {
             messageManager.sendMessage(player, "commands.create.name-exists");
             return;
         }
@@ -232,277 +514,956 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
             return;
         }
 
-        if (databaseManager.isLocationRegistered(block.getLocation())) {
+        if (smelterIndex.contains(block.getWorld(), block.getX(), block.getY(), block.getZ())) {
             messageManager.sendMessage(player, "commands.create.already-registered");
             return;
         }
 
         if (useEconomy && economy != null && smelterCost > 0) {
             if (!economy.has(player, smelterCost)) {
-                messageManager.sendMessage(player, "commands.create.insufficient-funds", "{COST}", String.valueOf(smelterCost));
+                messageManager.sendMessage(player, "commands.create.insufficient-funds", "{COST}", smelterCost);
                 return;
             }
             economy.withdrawPlayer(player, smelterCost);
-            messageManager.sendMessage(player, "commands.create.funds-deducted", "{COST}", String.valueOf(smelterCost));
-        }
-
-        if (databaseManager.addSmelter(uuid, name, block.getLocation())) {
-            smelters.put(name, new SmelterData(name, block.getLocation()));
-            messageManager.sendMessage(player, "commands.create.success", "{NAME}", name);
+            messageManager.sendMessage(player, "commands.create.funds-deducted", "{COST}", smelterCost);
         }
-    }
 
-    private int getPlayerLimit(Player player) {
-        for (Map.Entry<String, Integer> entry : groupLimits.entrySet()) {
-            if (player.hasPermission("remotesmelter.group." + entry.getKey())) {
-                return entry.getValue();
-            }
+        SmelterData data = new SmelterData(uuid, name, block.getLocation());
+        playerSmelters.put(data);
+        smelterIndex.add(data);
+        if (isLit(block)) {
+            smelterScheduler.markActive(data);
         }
-        return groupLimits.getOrDefault("default", 5);
+        databaseManager.addSmelter(data);
+        messageManager.sendMessage(player, "commands.create.success", "{NAME}", name);
     }
 
-    private void showLimit(Player player) {
-        int limit = getPlayerLimit(player);
-        int current = playerSmelters.getOrDefault(player.getUniqueId(), Collections.emptyMap()).size();
+    private void collectOutputs(Player player) {
+        UUID uuid = player.getUniqueId();
+        Map<String, SmelterData> smelters = getLoadedSmelters(player);
 
-        if (limit == -1) {
-            messageManager.sendMessage(player, "commands.limit.unlimited", "{CURRENT}", String.valueOf(current));
-        } else {
-            messageManager.sendMessage(player, "commands.limit.limited",
-                    "{CURRENT}", String.valueOf(current),
-                    "{LIMIT}", String.valueOf(limit));
+        if (smelters.isEmpty()) {
+            messageManager.sendMessage(player, "commands.view.no-smelters");
+            return;
         }
-    }
-
-    private void openSmelterGUI(Player player) {
-        Map<String, SmelterData> smelters = playerSmelters.get(player.getUniqueId());
 
-        if (smelters == null || smelters.isEmpty()) {
-            messageManager.sendMessage(player, "commands.view.no-smelters");
+        if (bulkTasks.containsKey(uuid)) {
+            messageManager.sendMessage(player, "commands.collect.busy");
             return;
         }
 
-        int size = Math.min(54, ((smelters.size() - 1) / 9 + 1) * 9);
-        Inventory gui = Bukkit.createInventory(null, size, messageManager.getMessage("commands.view.gui-title"));
+        int[] totals = new int[2];
+        boolean[] full = new boolean[1];
+        ChunkBatchTask task = new ChunkBatchTask(platform, new ArrayList<>(smelters.values()), bulkChunksPerTick, data -> {
+            Block block = getSmelterBlock(data);
+            if (block == null || !FURNACE_TYPES.contains(block.getType())) {
+                return true;
+            }
 
-        int slot = 0;
-        for (Map.Entry<String, SmelterData> entry : smelters.entrySet()) {
-            SmelterData data = entry.getValue();
-            Block block = data.location.getBlock();
+            if (virtualSmeltingEnabled) {
+                virtualSmelting.resume(data, block);
+            }
 
-            if (!(block.getState() instanceof Furnace)) {
-                continue;
+            FurnaceInventory inventory = ((Furnace) block.getState()).getInventory();
+            ItemStack result = inventory.getResult();
+            if (result == null || result.getType() == Material.AIR) {
+                return true;
             }
 
-            Furnace furnace = (Furnace) block.getState();
-            Material material = block.getType();
-            ItemStack item = new ItemStack(material);
-            ItemMeta meta = item.getItemMeta();
+            int amount = result.getAmount();
+            Map<Integer, ItemStack> leftover = player.getInventory().addItem(result.clone());
+            ItemStack remaining = leftover.isEmpty() ? null : leftover.values().iterator().next();
+            int moved = amount - (remaining == null ? 0 : remaining.getAmount());
 
-            meta.setDisplayName(ChatColor.GREEN + data.name);
-            List<String> lore = new ArrayList<>();
-            lore.add(messageManager.getMessage("gui.location",
-                    "{X}", String.valueOf(data.location.getBlockX()),
-                    "{Y}", String.valueOf(data.location.getBlockY()),
-                    "{Z}", String.valueOf(data.location.getBlockZ())));
-            lore.add(messageManager.getMessage("gui.world", "{WORLD}", data.location.getWorld().getName()));
+            inventory.setResult(remaining);
+            if (moved > 0) {
+                totals[0] += moved;
+                totals[1]++;
+            }
 
-            String status = furnace.getBurnTime() > 0 ?
-                    messageManager.getMessage("gui.status-active") :
-                    messageManager.getMessage("gui.status-inactive");
-            lore.add(messageManager.getMessage("gui.status", "{STATUS}", status));
+            if (remaining != null) {
+                full[0] = true;
+                return false;
+            }
+            return true;
+        }, () -> {
+            bulkTasks.remove(uuid);
+            if (!player.isOnline()) {
+                return;
+            }
+            if (totals[0] == 0 && !full[0]) {
+                messageManager.sendMessage(player, "commands.collect.nothing");
+                return;
+            }
+            messageManager.sendMessage(player, "commands.collect.done", "{AMOUNT}", totals[0], "{COUNT}", totals[1]);
+            if (full[0]) {
+                messageManager.sendMessage(player, "commands.collect.inventory-full");
+            }
+        });
 
-            lore.add("");
-            lore.add(messageManager.getMessage("gui.click-access"));
-            lore.add(messageManager.getMessage("gui.shift-delete"));
+        bulkTasks.put(uuid, task);
+        task.start();
+    }
 
-            meta.setLore(lore);
-            item.setItemMeta(meta);
+    private void loadHeldStack(Player player, boolean fuel) {
+        Map<String, SmelterData> smelters = getLoadedSmelters(player);
 
-            gui.setItem(slot++, item);
+        ItemStack held = player.getInventory().getItemInMainHand();
+        if (held == null || held.getType() == Material.AIR) {
+            messageManager.sendMessage(player, "commands.load.empty-hand");
+            return;
         }
 
-        player.openInventory(gui);
-    }
+        List<FurnaceInventory> targets = new ArrayList<>();
+        for (List<SmelterData> chunk : ChunkBatchTask.groupByChunk(smelters.values())) {
+            for (SmelterData data : chunk) {
+                World world = data.getWorld();
+                if (world == null || !world.isChunkLoaded(data.getX() >> 4, data.getZ() >> 4)) {
+                    break;
+                }
 
-    private void openConfigGUI(Player player) {
-        Inventory gui = Bukkit.createInventory(null, 27, messageManager.getMessage("commands.config.gui-title"));
+                Block block = world.getBlockAt(data.getX(), data.getY(), data.getZ());
+                if (!FURNACE_TYPES.contains(block.getType()) || isLit(block)) {
+                    continue;
+                }
 
-        ItemStack economyItem = new ItemStack(Material.GOLD_INGOT);
-        ItemMeta economyMeta = economyItem.getItemMeta();
-        economyMeta.setDisplayName(messageManager.getMessage("gui.economy.title"));
+                FurnaceInventory inventory = ((Furnace) block.getState()).getInventory();
+                if (fuel ? !inventory.isFuel(held) : !inventory.canSmelt(held)) {
+                    continue;
+                }
 
-        String enabledStatus = useEconomy ?
-                messageManager.getMessage("gui.economy.enabled-yes") :
-                messageManager.getMessage("gui.economy.enabled-no");
+                ItemStack slot = fuel ? inventory.getFuel() : inventory.getSmelting();
+                if (slot == null || slot.getType() == Material.AIR
+                        || (slot.isSimilar(held) && slot.getAmount() < slot.getMaxStackSize())) {
+                    targets.add(inventory);
+                }
+            }
+        }
 
-        economyMeta.setLore(Arrays.asList(
-                messageManager.getMessage("gui.economy.enabled", "{STATUS}", enabledStatus),
-                messageManager.getMessage("gui.economy.cost", "{COST}", String.valueOf(smelterCost)),
-                "",
-                messageManager.getMessage("gui.economy.click-toggle"),
-                messageManager.getMessage("gui.economy.right-click-cost")
-        ));
-        economyItem.setItemMeta(economyMeta);
+        if (targets.isEmpty()) {
+            messageManager.sendMessage(player, "commands.load.no-targets");
+            return;
+        }
 
-        ItemStack groupsItem = new ItemStack(Material.PLAYER_HEAD);
-        ItemMeta groupsMeta = groupsItem.getItemMeta();
-        groupsMeta.setDisplayName(messageManager.getMessage("gui.groups.title"));
-        groupsMeta.setLore(Arrays.asList(
-                messageManager.getMessage("gui.groups.description"),
-                "",
-                messageManager.getMessage("gui.groups.click-open")
-        ));
-        groupsItem.setItemMeta(groupsMeta);
+        int available = held.getAmount();
+        int loaded = 0;
+        int furnaces = 0;
+        for (int i = 0; i < targets.size() && available > 0; i++) {
+            FurnaceInventory inventory = targets.get(i);
+            ItemStack slot = fuel ? inventory.getFuel() : inventory.getSmelting();
+            int current = slot == null || slot.getType() == Material.AIR ? 0 : slot.getAmount();
+            int share = (available + targets.size() - i - 1) / (targets.size() - i);
+            int amount = Math.min(share, held.getMaxStackSize() - current);
+            if (amount <= 0) {
+                continue;
+            }
 
-        ItemStack saveItem = new ItemStack(Material.EMERALD);
-        ItemMeta saveMeta = saveItem.getItemMeta();
-        saveMeta.setDisplayName(messageManager.getMessage("gui.save.title"));
-        saveItem.setItemMeta(saveMeta);
+            ItemStack stack = held.clone();
+            stack.setAmount(current + amount);
+            if (fuel) {
+                inventory.setFuel(stack);
+            } else {
+                inventory.setSmelting(stack);
+            }
+            available -= amount;
+            loaded += amount;
+            furnaces++;
+        }
 
-        gui.setItem(11, economyItem);
-        gui.setItem(13, groupsItem);
-        gui.setItem(15, saveItem);
+        if (available > 0) {
+            held.setAmount(available);
+            player.getInventory().setItemInMainHand(held);
+        } else {
+            player.getInventory().setItemInMainHand(null);
+        }
 
-        player.openInventory(gui);
+        messageManager.sendMessage(player, "commands.load.done", "{AMOUNT}", loaded, "{COUNT}", furnaces);
     }
 
-    private void openGroupsGUI(Player player) {
-        Inventory gui = Bukkit.createInventory(null, 54, messageManager.getMessage("commands.config.groups-gui-title"));
-
-        int slot = 0;
-        for (Map.Entry<String, Integer> entry : groupLimits.entrySet()) {
-            ItemStack item = new ItemStack(Material.NAME_TAG);
-            ItemMeta meta = item.getItemMeta();
-            meta.setDisplayName(ChatColor.AQUA + entry.getKey());
+    private static SmelterLink.Kind parseLinkKind(String value) {
+        if (value.equalsIgnoreCase("input")) {
+            return SmelterLink.Kind.INPUT;
+        }
+        if (value.equalsIgnoreCase("output")) {
+            return SmelterLink.Kind.OUTPUT;
+        }
+        return null;
+    }
 
-            String limitText = entry.getValue() == -1 ?
-                    messageManager.getMessage("gui.groups.limit-unlimited") :
-                    ChatColor.YELLOW + String.valueOf(entry.getValue());
+    private List<SmelterData> selectSmelters(Player player, String name) {
+        Map<String, SmelterData> smelters = getLoadedSmelters(player);
 
-            meta.setLore(Arrays.asList(
-                    messageManager.getMessage("gui.groups.limit", "{LIMIT}", limitText),
-                    "",
-                    messageManager.getMessage("gui.groups.left-increase"),
-                    messageManager.getMessage("gui.groups.right-decrease"),
-                    messageManager.getMessage("gui.groups.shift-delete")
-            ));
-            item.setItemMeta(meta);
-            gui.setItem(slot++, item);
+        if (name.equals("*")) {
+            return new ArrayList<>(smelters.values());
         }
 
-        ItemStack addItem = new ItemStack(Material.EMERALD);
-        ItemMeta addMeta = addItem.getItemMeta();
-        addMeta.setDisplayName(messageManager.getMessage("gui.groups.add-new"));
-        addItem.setItemMeta(addMeta);
-        gui.setItem(53, addItem);
-
-        player.openInventory(gui);
+        SmelterData data = smelters.get(name);
+        if (data == null) {
+            messageManager.sendMessage(player, "commands.unknown-smelter", "{NAME}", name);
+            return null;
+        }
+        return Collections.singletonList(data);
     }
 
-    @EventHandler
-    public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) return;
-        Player player = (Player) event.getWhoClicked();
-
-        String title = event.getView().getTitle();
+    private void linkContainer(Player player, String name, SmelterLink.Kind kind) {
+        Block block = player.getTargetBlock(null, 5);
+        if (FURNACE_TYPES.contains(block.getType()) || !(block.getState() instanceof Container)) {
+            messageManager.sendMessage(player, "commands.link.not-container");
+            return;
+        }
 
-        if (title.equals(messageManager.getMessage("commands.view.gui-title"))) {
-            event.setCancelled(true);
+        if (!player.hasPermission("remotesmelter.link.bypass")) {
+            PlayerInteractEvent access = new PlayerInteractEvent(player, Action.RIGHT_CLICK_BLOCK,
+                    player.getInventory().getItemInMainHand(), block, BlockFace.UP);
+            getServer().getPluginManager().callEvent(access);
+            if (access.useInteractedBlock() == Event.Result.DENY) {
+                messageManager.sendMessage(player, "commands.link.no-access");
+                return;
+            }
+        }
 
-            if (event.getCurrentItem() == null || !event.getCurrentItem().hasItemMeta()) return;
+        List<SmelterData> selected = selectSmelters(player, name);
+        if (selected == null) {
+            return;
+        }
 
-            String name = ChatColor.stripColor(event.getCurrentItem().getItemMeta().getDisplayName());
-            Map<String, SmelterData> smelters = playerSmelters.get(player.getUniqueId());
+        Location target = block.getLocation();
+        for (SmelterData data : selected) {
+            smelterScheduler.setLink(data, kind, target);
+            databaseManager.linkSmelter(data, kind);
+        }
 
-            if (smelters == null || !smelters.containsKey(name)) return;
+        messageManager.sendMessage(player, "commands.link.linked",
+                "{COUNT}", selected.size(),
+                "{KIND}", kind.name().toLowerCase(Locale.ROOT));
+    }
 
-            if (event.isShiftClick()) {
-                if (databaseManager.removeSmelter(player.getUniqueId(), name)) {
-                    smelters.remove(name);
-                    messageManager.sendMessage(player, "smelter.deleted", "{NAME}", name);
-                    player.closeInventory();
-                }
-            } else {
-                SmelterData data = smelters.get(name);
-                Block block = data.location.getBlock();
+    private void unlinkContainer(Player player, String name, SmelterLink.Kind kind) {
+        List<SmelterData> selected = selectSmelters(player, name);
+        if (selected == null) {
+            return;
+        }
 
-                if (!(block.getState() instanceof Furnace)) {
-                    messageManager.sendMessage(player, "smelter.not-exists");
-                    databaseManager.removeSmelter(player.getUniqueId(), name);
-                    smelters.remove(name);
-                    player.closeInventory();
-                    return;
+        int count = 0;
+        for (SmelterData data : selected) {
+            boolean changed = false;
+            for (SmelterLink.Kind candidate : SmelterLink.Kind.values()) {
+                if ((kind == null || kind == candidate) && data.hasLink(candidate)) {
+                    smelterScheduler.setLink(data, candidate, null);
+                    databaseManager.linkSmelter(data, candidate);
+                    changed = true;
                 }
-
-                Furnace furnace = (Furnace) block.getState();
-                player.closeInventory();
-                player.openInventory(furnace.getInventory());
-                viewingPlayer.put(player.getUniqueId(), name);
             }
-        } else if (title.equals(messageManager.getMessage("commands.config.gui-title"))) {
-            event.setCancelled(true);
+            if (changed) {
+                count++;
+            }
+        }
 
-            if (event.getSlot() == 11) {
-                if (event.isLeftClick()) {
-                    useEconomy = !useEconomy;
-                    String status = useEconomy ? "enabled" : "disabled";
-                    player.sendMessage(ChatColor.GREEN + "Economy " + status + "!");
-                    openConfigGUI(player);
-                } else if (event.isRightClick()) {
-                    player.closeInventory();
-                    settingCost.add(player.getUniqueId());
-                    messageManager.sendMessage(player, "commands.config.set-cost-prompt", "{COST}", String.valueOf(smelterCost));
-                }
-            } else if (event.getSlot() == 13) {
-                openGroupsGUI(player);
-            } else if (event.getSlot() == 15) {
-                saveConfiguration();
-                messageManager.sendMessage(player, "commands.config.saved");
-                player.closeInventory();
+        messageManager.sendMessage(player, "commands.unlink.unlinked", "{COUNT}", count);
+    }
+
+    private void forgetLinks(SmelterData data) {
+        if (!data.hasLinks()) {
+            return;
+        }
+        smelterScheduler.removeLinked(data);
+        for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+            if (data.hasLink(kind)) {
+                data.setLink(kind, null);
+                databaseManager.linkSmelter(data, kind);
             }
-        } else if (title.equals(messageManager.getMessage("commands.config.groups-gui-title"))) {
-            event.setCancelled(true);
+        }
+    }
 
-            if (event.getCurrentItem() == null || !event.getCurrentItem().hasItemMeta()) return;
+    private void pollSharedChanges() {
+        List<SmelterChange> changes = databaseManager.pollChanges();
+        if (!changes.isEmpty()) {
+            platform.runGlobal(() -> applySharedChanges(changes));
+        }
+    }
 
-            if (event.getSlot() == 53) {
-                player.closeInventory();
-                addingGroup.add(player.getUniqueId());
-                messageManager.sendMessage(player, "commands.config.add-group-prompt");
-                return;
+    private void applySharedChanges(List<SmelterChange> changes) {
+        for (SmelterChange change : changes) {
+            StorageMutation mutation = change.mutation;
+            World world = Bukkit.getWorld(mutation.smelterWorld);
+            if (world == null) {
+                continue;
             }
 
-            String groupName = ChatColor.stripColor(event.getCurrentItem().getItemMeta().getDisplayName());
+            SmelterData existing = smelterIndex.get(world, mutation.smelterX, mutation.smelterY, mutation.smelterZ);
+            boolean matches = existing != null && existing.getOwner().equals(mutation.uuid) && existing.name.equals(mutation.name);
 
-            if (!groupLimits.containsKey(groupName)) return;
+            switch (mutation.getType()) {
+                case ADD:
+                    if (matches) {
+                        break;
+                    }
+                    if (existing != null) {
+                        dropSmelter(existing);
+                    }
 
-            if (event.isShiftClick()) {
-                groupLimits.remove(groupName);
-                openGroupsGUI(player);
-            } else if (event.isLeftClick()) {
-                int current = groupLimits.get(groupName);
-                if (current == -1) {
-                    groupLimits.put(groupName, 1);
-                } else {
-                    groupLimits.put(groupName, current + 1);
+                    Map<String, SmelterData> smelters = playerSmelters.get(mutation.uuid);
+                    SmelterData previous = smelters == null ? null : smelters.get(mutation.name);
+                    if (previous != null) {
+                        dropSmelter(previous);
+                    }
+
+                    SmelterData data = new SmelterData(mutation.uuid, mutation.name,
+                            new Location(world, mutation.smelterX, mutation.smelterY, mutation.smelterZ));
+                    smelterIndex.add(data);
+                    playerSmelters.put(data);
+                    if (world.isChunkLoaded(mutation.smelterX >> 4, mutation.smelterZ >> 4)) {
+                        platform.runAt(world, mutation.smelterX >> 4, mutation.smelterZ >> 4, () -> {
+                            Block block = data.getBlock();
+                            if (FURNACE_TYPES.contains(block.getType()) && isLit(block)) {
+                                smelterScheduler.markActive(data);
+                            }
+                        });
+                    }
+                    break;
+                case REMOVE:
+                    if (matches) {
+                        dropSmelter(existing);
+                    }
+                    break;
+                case REMOVE_LOCATION:
+                    if (existing != null) {
+                        dropSmelter(existing);
+                    }
+                    break;
+                case LINK:
+                    World targetWorld = Bukkit.getWorld(mutation.world);
+                    if (matches && targetWorld != null) {
+                        smelterScheduler.setLink(existing, mutation.kind,
+                                new Location(targetWorld, mutation.x, mutation.y, mutation.z));
+                    }
+                    break;
+                case UNLINK:
+                    if (matches) {
+                        smelterScheduler.setLink(existing, mutation.kind, null);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void dropSmelter(SmelterData data) {
+        smelterIndex.remove(data);
+        virtualSmelting.discard(data);
+        smelterScheduler.removeLinked(data);
+        for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+            data.setLink(kind, null);
+        }
+        playerSmelters.remove(data);
+    }
+
+    private int transferItems(SmelterData data, int budget) {
+        World world = data.getWorld();
+        if (world == null || !world.isChunkLoaded(data.getX() >> 4, data.getZ() >> 4)) {
+            return 0;
+        }
+
+        Block block = world.getBlockAt(data.getX(), data.getY(), data.getZ());
+        if (!FURNACE_TYPES.contains(block.getType())) {
+            return 0;
+        }
+
+        FurnaceInventory furnace = ((Furnace) block.getState()).getInventory();
+        int moved = 0;
+
+        Inventory output = linkedInventory(data, SmelterLink.Kind.OUTPUT);
+        if (output != null) {
+            moved += pushResult(furnace, output, budget);
+        }
+
+        Inventory input = linkedInventory(data, SmelterLink.Kind.INPUT);
+        if (input != null && moved < budget) {
+            moved += pullInputs(furnace, input, budget - moved);
+        }
+
+        return moved;
+    }
+
+    private static Inventory linkedInventory(SmelterData data, SmelterLink.Kind kind) {
+        int worldId = data.getLinkWorldId(kind);
+        if (worldId < 0) {
+            return null;
+        }
+
+        World world = SmelterData.WORLDS.resolve(worldId);
+        long target = data.getLinkBlock(kind);
+        int x = SmelterIndex.unpackX(target);
+        int z = SmelterIndex.unpackZ(target);
+        if (world == null || !world.isChunkLoaded(x >> 4, z >> 4)) {
+            return null;
+        }
+
+        BlockState state = world.getBlockAt(x, SmelterIndex.unpackY(target), z).getState();
+        return state instanceof Container ? ((Container) state).getInventory() : null;
+    }
+
+    private static int pushResult(FurnaceInventory furnace, Inventory output, int budget) {
+        ItemStack result = furnace.getResult();
+        if (result == null || result.getType() == Material.AIR) {
+            return 0;
+        }
+
+        ItemStack moving = result.clone();
+        moving.setAmount(Math.min(result.getAmount(), budget));
+        int moved = moving.getAmount();
+        for (ItemStack leftover : output.addItem(moving).values()) {
+            moved -= leftover.getAmount();
+        }
+
+        if (moved > 0) {
+            int remaining = result.getAmount() - moved;
+            if (remaining > 0) {
+                result.setAmount(remaining);
+                furnace.setResult(result);
+            } else {
+                furnace.setResult(null);
+            }
+        }
+        return moved;
+    }
+
+    private static int pullInputs(FurnaceInventory furnace, Inventory input, int budget) {
+        int moved = 0;
+        for (int slot = 0; slot < input.getSize() && moved < budget; slot++) {
+            ItemStack item = input.getItem(slot);
+            if (item == null || item.getType() == Material.AIR) {
+                continue;
+            }
+
+            boolean smeltable = furnace.canSmelt(item);
+            ItemStack target = smeltable ? furnace.getSmelting() : furnace.getFuel();
+            if (!smeltable && !furnace.isFuel(item)) {
+                continue;
+            }
+
+            int current = 0;
+            if (target != null && target.getType() != Material.AIR) {
+                if (!target.isSimilar(item)) {
+                    continue;
                 }
-                openGroupsGUI(player);
+                current = target.getAmount();
+            }
+
+            int amount = Math.min(Math.min(item.getAmount(), budget - moved), item.getMaxStackSize() - current);
+            if (amount <= 0) {
+                continue;
+            }
+
+            ItemStack stack = item.clone();
+            stack.setAmount(current + amount);
+            if (smeltable) {
+                furnace.setSmelting(stack);
+            } else {
+                furnace.setFuel(stack);
+            }
+
+            int remaining = item.getAmount() - amount;
+            if (remaining > 0) {
+                item.setAmount(remaining);
+                input.setItem(slot, item);
+            } else {
+                input.setItem(slot, null);
+            }
+            moved += amount;
+        }
+        return moved;
+    }
+
+    private int getPlayerLimit(Player player) {
+        return limitCache.get(player.getUniqueId(), () -> resolveLimit(groupLimits, player));
+    }
+
+    static int resolveLimit(Map<String, Integer> groupLimits, Permissible player) {
+        for (Map.Entry<String, Integer> entry : groupLimits.entrySet()) {
+            if (player.hasPermission("remotesmelter.group." + entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return groupLimits.getOrDefault("default", 5);
+    }
+
+    private void showLimit(Player player) {
+        Map<String, SmelterData> smelters = getLoadedSmelters(player);
+
+        int limit = getPlayerLimit(player);
+        int current = smelters.size();
+
+        if (limit == -1) {
+            messageManager.sendMessage(player, "commands.limit.unlimited", "{CURRENT}", current);
+        } else {
+            messageManager.sendMessage(player, "commands.limit.limited",
+                    "{CURRENT}", current,
+                    "{LIMIT}", limit);
+        }
+    }
+
+    private void openSmelterGUI(Player player, String filter) {
+        long start = System.nanoTime();
+        try {
+            Map<String, SmelterData> smelters = getLoadedSmelters(player);
+
+            if (smelters.isEmpty()) {
+                messageManager.sendMessage(player, "commands.view.no-smelters");
+                return;
+            }
+
+            SmelterView view = new SmelterView(SmelterView.inventorySize(smelters.size()),
+                    messageManager.getMessage("commands.view.gui-title"));
+            view.filter = filter;
+            updateEntries(view, smelters);
+            renderPage(view);
+
+            player.openInventory(view.getInventory());
+            openViews.put(player.getUniqueId(), view);
+        } finally {
+            guiOpenTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    private void updateEntries(SmelterView view, Map<String, SmelterData> smelters) {
+        String filter = view.filter.toLowerCase(Locale.ROOT);
+        List<SmelterData> entries = new ArrayList<>(smelters.size());
+        for (SmelterData data : smelters.values()) {
+            if (filter.isEmpty()
+                    || data.name.toLowerCase(Locale.ROOT).contains(filter)
+                    || data.getWorldName().toLowerCase(Locale.ROOT).contains(filter)) {
+                entries.add(data);
+            }
+        }
+
+        Comparator<SmelterData> byName = Comparator.comparing(data -> data.name, String.CASE_INSENSITIVE_ORDER);
+        switch (view.sort) {
+            case WORLD:
+                entries.sort(Comparator.comparing((SmelterData data) -> data.getWorldName())
+                        .thenComparing(byName));
+                break;
+            case ACTIVE:
+                entries.sort(Comparator.comparing((SmelterData data) -> !smelterIndex.isActive(data)).thenComparing(byName));
+                break;
+            default:
+                entries.sort(byName);
+                break;
+        }
+
+        view.entries = entries;
+        view.page = Math.min(view.page, view.getPageCount() - 1);
+    }
+
+    private void renderPage(SmelterView view) {
+        int offset = view.page * view.pageSize;
+        for (int slot = 0; slot < view.pageSize; slot++) {
+            int index = offset + slot;
+            if (index >= view.entries.size()) {
+                view.clear(slot);
+                continue;
+            }
+
+            SmelterData data = view.entries.get(index);
+            Block block = getSmelterBlock(data);
+            Material material = block == null ? Material.AIR : block.getType();
+
+            if (!FURNACE_TYPES.contains(material)) {
+                view.clear(slot);
+                continue;
+            }
+
+            boolean lit = smelterIndex.isActive(data);
+            view.inventory.setItem(slot, smelterIcons.get(data, material, lit));
+            view.set(slot, data, lit);
+        }
+
+        int pages = view.getPageCount();
+        view.inventory.setItem(view.previousSlot(), view.page > 0 ?
+                controlItem(Material.ARROW, messageManager.getMessage("gui.browser.previous")) : null);
+        view.inventory.setItem(view.nextSlot(), view.page < pages - 1 ?
+                controlItem(Material.ARROW, messageManager.getMessage("gui.browser.next")) : null);
+        view.inventory.setItem(view.pageSlot(), controlItem(Material.PAPER,
+                messageManager.getMessage("gui.browser.page", "{PAGE}", view.page + 1, "{PAGES}", pages),
+                messageManager.getMessage("gui.browser.total", "{COUNT}", view.entries.size())));
+        view.inventory.setItem(view.sortSlot(), controlItem(Material.HOPPER,
+                messageManager.getMessage("gui.browser.sort", "{SORT}",
+                        messageManager.getMessage("gui.browser.sort-" + view.sort.name().toLowerCase(Locale.ROOT))),
+                messageManager.getMessage("gui.browser.sort-click")));
+        view.inventory.setItem(view.filterSlot(), controlItem(Material.NAME_TAG,
+                messageManager.getMessage("gui.browser.filter", "{FILTER}",
+                        view.filter.isEmpty() ? messageManager.getMessage("gui.browser.filter-none") : view.filter),
+                messageManager.getMessage("gui.browser.filter-set"),
+                messageManager.getMessage("gui.browser.filter-clear")));
+    }
+
+    private ItemStack controlItem(Material material, String name, String... lore) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        meta.setDisplayName(name);
+        meta.setLore(Arrays.asList(lore));
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    private void handleBrowserClick(Player player, SmelterView view, InventoryClickEvent event) {
+        int slot = event.getRawSlot();
+
+        if (slot == view.previousSlot() && view.page > 0) {
+            view.page--;
+            renderPage(view);
+        } else if (slot == view.nextSlot() && view.page < view.getPageCount() - 1) {
+            view.page++;
+            renderPage(view);
+        } else if (slot == view.sortSlot()) {
+            view.sort = view.sort.next();
+            refreshEntries(player, view);
+        } else if (slot == view.filterSlot()) {
+            if (event.isRightClick()) {
+                view.filter = "";
+                view.page = 0;
+                refreshEntries(player, view);
+            } else {
+                player.closeInventory();
+                filteringSmelters.add(player.getUniqueId());
+                messageManager.sendMessage(player, "commands.view.filter-prompt");
+            }
+        }
+    }
+
+    private void refreshEntries(Player player, SmelterView view) {
+        Map<String, SmelterData> smelters = playerSmelters.get(player.getUniqueId());
+        if (smelters == null) {
+            return;
+        }
+        updateEntries(view, smelters);
+        renderPage(view);
+    }
+
+    private void openConfigGUI(Player player) {
+        ConfigMenu menu = new ConfigMenu(messageManager.getMessage("commands.config.gui-title"));
+        Inventory gui = menu.getInventory();
+
+        ItemStack economyItem = new ItemStack(Material.GOLD_INGOT);
+        ItemMeta economyMeta = economyItem.getItemMeta();
+        economyMeta.setDisplayName(messageManager.getMessage("gui.economy.title"));
+
+        String enabledStatus = useEconomy ?
+                messageManager.getMessage("gui.economy.enabled-yes") :
+                messageManager.getMessage("gui.economy.enabled-no");
+
+        economyMeta.setLore(Arrays.asList(
+                messageManager.getMessage("gui.economy.enabled", "{STATUS}", enabledStatus),
+                messageManager.getMessage("gui.economy.cost", "{COST}", smelterCost),
+                "",
+                messageManager.getMessage("gui.economy.click-toggle"),
+                messageManager.getMessage("gui.economy.right-click-cost")
+        ));
+        economyItem.setItemMeta(economyMeta);
+
+        ItemStack groupsItem = new ItemStack(Material.PLAYER_HEAD);
+        ItemMeta groupsMeta = groupsItem.getItemMeta();
+        groupsMeta.setDisplayName(messageManager.getMessage("gui.groups.title"));
+        groupsMeta.setLore(Arrays.asList(
+                messageManager.getMessage("gui.groups.description"),
+                "",
+                messageManager.getMessage("gui.groups.click-open")
+        ));
+        groupsItem.setItemMeta(groupsMeta);
+
+        ItemStack saveItem = new ItemStack(Material.EMERALD);
+        ItemMeta saveMeta = saveItem.getItemMeta();
+        saveMeta.setDisplayName(messageManager.getMessage("gui.save.title"));
+        saveItem.setItemMeta(saveMeta);
+
+        gui.setItem(ConfigMenu.ECONOMY_SLOT, economyItem);
+        gui.setItem(ConfigMenu.GROUPS_SLOT, groupsItem);
+        gui.setItem(ConfigMenu.SAVE_SLOT, saveItem);
+
+        player.openInventory(gui);
+    }
+
+    private void openGroupsGUI(Player player) {
+        GroupsMenu menu = new GroupsMenu(messageManager.getMessage("commands.config.groups-gui-title"));
+        Inventory gui = menu.getInventory();
+
+        int slot = 0;
+        for (Map.Entry<String, Integer> entry : groupLimits.entrySet()) {
+            if (slot >= GroupsMenu.ADD_SLOT) {
+                break;
+            }
+
+            ItemStack item = new ItemStack(Material.NAME_TAG);
+            ItemMeta meta = item.getItemMeta();
+            meta.setDisplayName(ChatColor.AQUA + entry.getKey());
+
+            String limitText = entry.getValue() == -1 ?
+                    messageManager.getMessage("gui.groups.limit-unlimited") :
+                    ChatColor.YELLOW + String.valueOf(entry.getValue());
+
+            meta.setLore(Arrays.asList(
+                    messageManager.getMessage("gui.groups.limit", "{LIMIT}", limitText),
+                    "",
+                    messageManager.getMessage("gui.groups.left-increase"),
+                    messageManager.getMessage("gui.groups.right-decrease"),
+                    messageManager.getMessage("gui.groups.shift-delete")
+            ));
+            item.setItemMeta(meta);
+            menu.groups[slot] = entry.getKey();
+            gui.setItem(slot++, item);
+        }
+
+        ItemStack addItem = new ItemStack(Material.EMERALD);
+        ItemMeta addMeta = addItem.getItemMeta();
+        addMeta.setDisplayName(messageManager.getMessage("gui.groups.add-new"));
+        addItem.setItemMeta(addMeta);
+        gui.setItem(GroupsMenu.ADD_SLOT, addItem);
+
+        player.openInventory(gui);
+    }
+
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (event.getView().getTopInventory().getType() != InventoryType.CHEST) return;
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (!(holder instanceof MenuHolder)) return;
+
+        long start = System.nanoTime();
+        try {
+            event.setCancelled(true);
+
+            if (!(event.getWhoClicked() instanceof Player)) return;
+            Player player = (Player) event.getWhoClicked();
+
+            MenuHolder menu = (MenuHolder) holder;
+            int slot = event.getRawSlot();
+            if (!menu.isTopSlot(slot)) return;
+
+            if (menu instanceof SmelterView) {
+                handleSmelterViewClick(player, (SmelterView) menu, event, slot);
+            } else if (menu instanceof ConfigMenu) {
+                handleConfigClick(player, event, slot);
+            } else if (menu instanceof GroupsMenu) {
+                handleGroupsClick(player, (GroupsMenu) menu, event, slot);
+            }
+        } finally {
+            inventoryClickTimer.record(System.nanoTime() - start);
+        }
+    }
+
+    private void handleSmelterViewClick(Player player, SmelterView view, InventoryClickEvent event, int slot) {
+        if (view.isControlSlot(slot)) {
+            handleBrowserClick(player, view, event);
+            return;
+        }
+
+        SmelterData data = view.getSmelter(slot);
+        Map<String, SmelterData> smelters = playerSmelters.get(player.getUniqueId());
+
+        if (data == null || smelters == null || smelters.get(data.name) != data) return;
+
+        if (event.isShiftClick()) {
+            removeSmelter(data);
+            messageManager.sendMessage(player, "smelter.deleted", "{NAME}", data.name);
+            player.closeInventory();
+        } else {
+            openSmelter(player, data);
+        }
+    }
+
+    private void openSmelter(Player player, SmelterData data) {
+        World world = data.getWorld();
+        if (world == null) {
+            messageManager.sendMessage(player, "smelter.not-exists");
+            return;
+        }
+
+        platform.runAt(world, data.getX() >> 4, data.getZ() >> 4, () -> {
+            Block block = getSmelterBlock(data);
+
+            if (block == null || !FURNACE_TYPES.contains(block.getType())) {
+                platform.runFor(player, () -> {
+                    messageManager.sendMessage(player, "smelter.not-exists");
+                    removeSmelter(data);
+                    player.closeInventory();
+                });
+                return;
+            }
+
+            if (virtualSmeltingEnabled) {
+                virtualSmelting.resume(data, block);
+            }
+
+            Inventory inventory = ((Furnace) block.getState()).getInventory();
+            platform.runFor(player, () -> {
+                player.closeInventory();
+                player.openInventory(inventory);
+                viewingPlayer.put(player.getUniqueId(), data.name);
+            });
+        });
+    }
+
+    private void removeSmelter(SmelterData data) {
+        playerSmelters.remove(data);
+        smelterIndex.remove(data);
+        virtualSmelting.discard(data);
+        forgetLinks(data);
+        databaseManager.removeSmelter(data);
+    }
+
+    private SmelterData findSmelter(Player player, String name) {
+        Map<String, SmelterData> smelters = getLoadedSmelters(player);
+
+        SmelterData data = smelters.get(name);
+        if (data == null) {
+            messageManager.sendMessage(player, "commands.unknown-smelter", "{NAME}", name);
+        }
+        return data;
+    }
+
+    private void renameSmelter(Player player, String name, String newName) {
+        SmelterData data = findSmelter(player, name);
+        if (data == null || !checkSmelterName(player, newName)) {
+            return;
+        }
+
+        SmelterData renamed = new SmelterData(data.ownerId, newName, data.worldId, data.block);
+        if (!playerSmelters.replace(data, renamed)) {
+            messageManager.sendMessage(player, "commands.create.name-exists");
+            return;
+        }
+
+        boolean active = smelterIndex.isActive(data);
+        smelterIndex.add(renamed);
+        if (active) {
+            smelterScheduler.markActive(renamed);
+        }
+        virtualSmelting.move(data, renamed);
+        smelterIcons.invalidate(data);
+
+        databaseManager.removeSmelter(data);
+        databaseManager.addSmelter(renamed);
+        for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+            if (data.getLinkWorldId(kind) >= 0) {
+                renamed.setLink(kind, data.getLinkWorldId(kind), data.getLinkBlock(kind));
+                databaseManager.linkSmelter(renamed, kind);
+            }
+        }
+        if (renamed.hasLinks()) {
+            smelterScheduler.removeLinked(data);
+            smelterScheduler.addLinked(renamed);
+        }
+
+        messageManager.sendMessage(player, "commands.rename.success", "{NAME}", data.name, "{NEW_NAME}", newName);
+    }
+
+    private void handleConfigClick(Player player, InventoryClickEvent event, int slot) {
+        if (slot == ConfigMenu.ECONOMY_SLOT) {
+            if (event.isLeftClick()) {
+                useEconomy = !useEconomy;
+                String status = useEconomy ? "enabled" : "disabled";
+                player.sendMessage(ChatColor.GREEN + "Economy " + status + "!");
+                openConfigGUI(player);
             } else if (event.isRightClick()) {
-                int current = groupLimits.get(groupName);
-                if (current > 0) {
-                    groupLimits.put(groupName, current - 1);
-                } else if (current == 0) {
-                    groupLimits.put(groupName, -1);
-                }
-                openGroupsGUI(player);
+                player.closeInventory();
+                settingCost.add(player.getUniqueId());
+                messageManager.sendMessage(player, "commands.config.set-cost-prompt", "{COST}", smelterCost);
             }
+        } else if (slot == ConfigMenu.GROUPS_SLOT) {
+            openGroupsGUI(player);
+        } else if (slot == ConfigMenu.SAVE_SLOT) {
+            saveConfiguration();
+            messageManager.sendMessage(player, "commands.config.saved");
+            player.closeInventory();
         }
     }
 
+    private void handleGroupsClick(Player player, GroupsMenu menu, InventoryClickEvent event, int slot) {
+        if (slot == GroupsMenu.ADD_SLOT) {
+            player.closeInventory();
+            addingGroup.add(player.getUniqueId());
+            messageManager.sendMessage(player, "commands.config.add-group-prompt");
+            return;
+        }
+
+        String groupName = menu.getGroup(slot);
+
+        if (groupName == null || !groupLimits.containsKey(groupName)) return;
+
+        if (event.isShiftClick()) {
+            updateGroupLimits(limits -> limits.remove(groupName));
+            openGroupsGUI(player);
+        } else if (event.isLeftClick()) {
+            updateGroupLimits(limits -> limits.computeIfPresent(groupName, (k, current) -> current == -1 ? 1 : current + 1));
+            openGroupsGUI(player);
+        } else if (event.isRightClick()) {
+            updateGroupLimits(limits -> limits.computeIfPresent(groupName, (k, current) -> current > 0 ? current - 1 : -1));
+            openGroupsGUI(player);
+        }
+    }
+
+    private synchronized void updateGroupLimits(Consumer<Map<String, Integer>> edit) {
+        Map<String, Integer> next = new LinkedHashMap<>(groupLimits);
+        edit.accept(next);
+        groupLimits = Collections.unmodifiableMap(next);
+        limitCache.clear();
+    }
+
     @EventHandler
     public void onInventoryClose(InventoryCloseEvent event) {
-        viewingPlayer.remove(event.getPlayer().getUniqueId());
+        UUID uuid = event.getPlayer().getUniqueId();
+        viewingPlayer.remove(uuid);
+
+        if (event.getView().getTopInventory().getType() != InventoryType.CHEST) {
+            return;
+        }
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (holder instanceof SmelterView) {
+            openViews.remove(uuid, holder);
+        }
+    }
+
+    private void scheduleGuiRefresh(long periodTicks) {
+        if (guiRefreshTask != null) {
+            guiRefreshTask.cancel();
+            guiRefreshTask = null;
+        }
+
+        if (periodTicks > 0) {
+            guiRefreshTask = platform.runGlobalTimer(this::refreshOpenViews, periodTicks, periodTicks);
+        }
+    }
+
+    private void refreshOpenViews() {
+        for (Map.Entry<UUID, SmelterView> entry : openViews.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null) {
+                SmelterView view = entry.getValue();
+                platform.runFor(player, () -> refreshView(view));
+            }
+        }
+    }
+
+    private void refreshView(SmelterView view) {
+        for (int slot = 0; slot < view.slots.length; slot++) {
+            SmelterData data = view.slots[slot];
+            if (data == null) {
+                continue;
+            }
+
+            boolean lit = smelterIndex.isActive(data);
+            if (lit == view.active[slot]) {
+                continue;
+            }
+
+            ItemStack current = view.inventory.getItem(slot);
+            if (current == null || smelterIndex.get(data.worldId, data.block) != data) {
+                view.clear(slot);
+                continue;
+            }
+
+            view.inventory.setItem(slot, smelterIcons.get(data, current.getType(), lit));
+            view.active[slot] = lit;
+        }
     }
 
     @EventHandler(priority = EventPriority.LOWEST)
@@ -510,9 +1471,8 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
 
-        if (addingGroup.contains(uuid)) {
+        if (addingGroup.remove(uuid)) {
             event.setCancelled(true);
-            addingGroup.remove(uuid);
 
             String groupName = event.getMessage().trim().toLowerCase();
 
@@ -526,15 +1486,13 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
                 return;
             }
 
-            groupLimits.put(groupName, 5);
-
-            Bukkit.getScheduler().runTask(this, () -> {
+            platform.runFor(player, () -> {
+                addGroup(groupName, 5);
                 messageManager.sendMessage(player, "commands.config.group-created", "{NAME}", groupName);
                 openGroupsGUI(player);
             });
-        } else if (settingCost.contains(uuid)) {
+        } else if (settingCost.remove(uuid)) {
             event.setCancelled(true);
-            settingCost.remove(uuid);
 
             try {
                 double newCost = Double.parseDouble(event.getMessage().trim());
@@ -544,70 +1502,408 @@ public class RemoteSmelter extends JavaPlugin implements Listener, CommandExecut
                     return;
                 }
 
-                smelterCost = newCost;
-
-                Bukkit.getScheduler().runTask(this, () -> {
-                    messageManager.sendMessage(player, "commands.config.cost-set", "{COST}", String.valueOf(smelterCost));
-                    openConfigGUI(player);
+                platform.runGlobal(() -> {
+                    smelterCost = newCost;
+                    platform.runFor(player, () -> {
+                        messageManager.sendMessage(player, "commands.config.cost-set", "{COST}", newCost);
+                        openConfigGUI(player);
+                    });
                 });
             } catch (NumberFormatException e) {
                 messageManager.sendMessage(player, "commands.config.invalid-number");
             }
+        } else if (filteringSmelters.remove(uuid)) {
+            event.setCancelled(true);
+
+            String filter = event.getMessage().trim();
+            platform.runFor(player, () -> openSmelterGUI(player, filter));
         }
     }
 
+    private void addGroup(String groupName, int limit) {
+        updateGroupLimits(limits -> {
+            Map<String, Integer> reordered = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : limits.entrySet()) {
+                if (entry.getKey().equals("default")) {
+                    reordered.put(groupName, limit);
+                }
+                reordered.put(entry.getKey(), entry.getValue());
+            }
+            reordered.putIfAbsent(groupName, limit);
+
+            limits.clear();
+            limits.putAll(reordered);
+        });
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        offlineSince.remove(uuid);
+        limitCache.invalidate(uuid);
+        loadPlayerSmelters(uuid);
+    }
+
+    @EventHandler
+    public void onPlayerCommandSend(PlayerCommandSendEvent event) {
+        limitCache.invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        limitCache.invalidate(event.getPlayer().getUniqueId());
+    }
+
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         UUID uuid = event.getPlayer().getUniqueId();
         viewingPlayer.remove(uuid);
+        openViews.remove(uuid);
+        filteringSmelters.remove(uuid);
+        ChunkBatchTask bulkTask = bulkTasks.get(uuid);
+        if (bulkTask != null) {
+            bulkTask.finish();
+        }
         addingGroup.remove(uuid);
         settingCost.remove(uuid);
+        limitCache.invalidate(uuid);
+        scheduleEviction(uuid);
+    }
+
+    private Map<String, SmelterData> getLoadedSmelters(Player player) {
+        return loadPlayerSmelters(player.getUniqueId());
+    }
+
+    private Map<String, SmelterData> loadPlayerSmelters(UUID uuid) {
+        Map<String, SmelterData> loaded = playerSmelters.get(uuid);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        Map<String, SmelterData> smelters = new HashMap<>();
+        for (SmelterData data : smelterIndex.getOwned(SmelterData.OWNERS.indexOf(uuid))) {
+            smelters.put(data.name, data);
+        }
+        playerSmelters.load(uuid, smelters);
+        return playerSmelters.get(uuid);
+    }
+
+    private void scheduleEviction(UUID uuid) {
+        if (!playerSmelters.isLoaded(uuid)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        offlineSince.remove(uuid);
+        offlineSince.put(uuid, now);
+
+        Iterator<UUID> eldest = offlineSince.keySet().iterator();
+        while (offlineSince.size() > maxOfflinePlayers && eldest.hasNext()) {
+            playerSmelters.unload(eldest.next());
+            eldest.remove();
+        }
+
+        platform.runGlobalLater(() -> {
+            Long since = offlineSince.get(uuid);
+            if (since != null && since == now && Bukkit.getPlayer(uuid) == null) {
+                offlineSince.remove(uuid);
+                playerSmelters.unload(uuid);
+            }
+        }, Math.max(1L, evictAfterMillis / 50L));
     }
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent event) {
-        Location loc = event.getBlock().getLocation();
-        Map.Entry<UUID, String> owner = databaseManager.getSmelterOwner(loc);
+        long start = System.nanoTime();
+        try {
+            Block block = event.getBlock();
+            SmelterData data = smelterIndex.remove(block.getWorld(), block.getX(), block.getY(), block.getZ());
 
-        if (owner != null) {
-            UUID ownerUUID = owner.getKey();
-            String smelterName = owner.getValue();
+            if (data != null) {
+                virtualSmelting.discard(data);
+                forgetLinks(data);
+                UUID ownerUUID = data.getOwner();
+                String smelterName = data.name;
 
-            Map<String, SmelterData> smelters = playerSmelters.get(ownerUUID);
-            if (smelters != null) {
-                smelters.remove(smelterName);
-            }
+                playerSmelters.remove(data);
 
-            databaseManager.removeSmelterByLocation(loc);
+                databaseManager.removeSmelter(data);
 
-            Player ownerPlayer = Bukkit.getPlayer(ownerUUID);
-            if (ownerPlayer != null && ownerPlayer.isOnline()) {
-                messageManager.sendMessage(ownerPlayer, "smelter.destroyed", "{NAME}", smelterName);
+                Player ownerPlayer = Bukkit.getPlayer(ownerUUID);
+                if (ownerPlayer != null && ownerPlayer.isOnline()) {
+                    messageManager.sendMessage(ownerPlayer, "smelter.destroyed", "{NAME}", smelterName);
+                }
             }
+        } finally {
+            blockBreakTimer.record(System.nanoTime() - start);
         }
     }
 
-    private void updateAllSmelters() {
-        for (Map<String, SmelterData> playerData : playerSmelters.values()) {
-            for (SmelterData data : playerData.values()) {
-                Block block = data.location.getBlock();
-                if (block.getState() instanceof Furnace) {
-                    Furnace furnace = (Furnace) block.getState();
-                    if (furnace.getBurnTime() > 0 || furnace.getCookTime() > 0) {
-                        furnace.update();
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLinkedBlockBreak(BlockBreakEvent event) {
+        dropLinksTo(Collections.singletonList(event.getBlock()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        dropLinksTo(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        dropLinksTo(event.blockList());
+    }
+
+    private void dropLinksTo(List<Block> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        int worldId = SmelterData.WORLDS.indexOf(blocks.get(0).getWorld());
+        if (worldId < 0) {
+            return;
+        }
+
+        for (Block block : blocks) {
+            long target = SmelterIndex.packBlock(block.getX(), block.getY(), block.getZ());
+            List<SmelterData> linked = smelterScheduler.getLinkedTo(worldId, target);
+            if (linked.isEmpty()) {
+                continue;
+            }
+
+            for (SmelterData data : new ArrayList<>(linked)) {
+                for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+                    if (data.getLinkWorldId(kind) == worldId && data.getLinkBlock(kind) == target) {
+                        smelterScheduler.setLink(data, kind, null);
+                        databaseManager.linkSmelter(data, kind);
                     }
                 }
             }
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        SmelterIndex.ChunkBucket bucket = smelterIndex.chunkLoaded(chunk.getWorld(), chunk.getX(), chunk.getZ());
+
+        if (bucket == null) {
+            return;
+        }
+
+        if (virtualSmeltingEnabled) {
+            for (SmelterData data : bucket.smelters) {
+                if (virtualSmelting.hasSnapshot(data)) {
+                    virtualSmelting.resume(data, data.getBlock());
+                }
+            }
+        }
+        markLitSmelters(bucket);
+    }
+
+    private void markLitSmelters(SmelterIndex.ChunkBucket bucket) {
+        for (SmelterData data : bucket.smelters) {
+            Block block = data.getBlock();
+            if (FURNACE_TYPES.contains(block.getType()) && isLit(block)) {
+                smelterScheduler.markActive(data);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        SmelterIndex.ChunkBucket bucket = smelterIndex.chunkUnloaded(chunk.getWorld(), chunk.getX(), chunk.getZ());
+
+        if (bucket != null && virtualSmeltingEnabled) {
+            for (SmelterData data : bucket.smelters) {
+                virtualSmelting.capture(data, data.getBlock());
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerLoad(ServerLoadEvent event) {
+        virtualSmelting.invalidateRecipes();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        smelterIndex.worldUnloaded(event.getWorld());
+        SmelterData.WORLDS.forget(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFurnaceBurn(FurnaceBurnEvent event) {
+        markActive(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onFurnaceStartSmelt(FurnaceStartSmeltEvent event) {
+        markActive(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFurnaceSmelt(FurnaceSmeltEvent event) {
+        markActive(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onFurnaceExtract(FurnaceExtractEvent event) {
+        markActive(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        markActive(event.getDestination());
+        markActive(event.getSource());
+    }
+
+    private void markActive(Inventory inventory) {
+        InventoryType type = inventory.getType();
+        if (type == InventoryType.FURNACE || type == InventoryType.BLAST_FURNACE || type == InventoryType.SMOKER) {
+            Location loc = inventory.getLocation();
+            if (loc != null) {
+                markActive(loc.getBlock());
+            }
+        }
+    }
+
+    private void markActive(Block block) {
+        SmelterData data = smelterIndex.get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        if (data != null) {
+            smelterScheduler.markActive(data);
+        }
+    }
+
+    private boolean tickSmelter(SmelterData data) {
+        Block block = data.getBlock();
+        if (block != null && FURNACE_TYPES.contains(block.getType()) && isLit(block)) {
+            block.getState().update();
+            return true;
+        }
+        return false;
+    }
+
+    private Block getSmelterBlock(SmelterData data) {
+        World world = data.getWorld();
+        if (world == null) {
+            return null;
+        }
+        if (!world.isChunkLoaded(data.getX() >> 4, data.getZ() >> 4)) {
+            chunkLoadsTriggered.increment();
+        }
+        return world.getBlockAt(data.getX(), data.getY(), data.getZ());
+    }
+
+    static boolean isLit(Block block) {
+        BlockData blockData = block.getBlockData();
+        return blockData instanceof Lightable && ((Lightable) blockData).isLit();
+    }
+
     public static class SmelterData {
+        static final InternTable<UUID> OWNERS = new InternTable<>();
+        static final WorldTable WORLDS = new WorldTable();
+
+        final int ownerId;
         final String name;
-        final Location location;
+        final int worldId;
+        final long block;
+        private long[] links;
+        int activeIndex = -1;
+
+        public SmelterData(UUID owner, String name, Location location) {
+            this(OWNERS.intern(owner), name, WORLDS.intern(location.getWorld()),
+                    SmelterIndex.packBlock(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+        }
 
-        public SmelterData(String name, Location location) {
+        SmelterData(int ownerId, String name, int worldId, long block) {
+            this.ownerId = ownerId;
             this.name = name;
-            this.location = location;
+            this.worldId = worldId;
+            this.block = block;
+        }
+
+        public UUID getOwner() {
+            return OWNERS.get(ownerId);
+        }
+
+        public World getWorld() {
+            return WORLDS.resolve(worldId);
+        }
+
+        public String getWorldName() {
+            return WORLDS.get(worldId);
+        }
+
+        public int getX() {
+            return SmelterIndex.unpackX(block);
+        }
+
+        public int getY() {
+            return SmelterIndex.unpackY(block);
+        }
+
+        public int getZ() {
+            return SmelterIndex.unpackZ(block);
+        }
+
+        public Block getBlock() {
+            World world = getWorld();
+            return world == null ? null : world.getBlockAt(getX(), getY(), getZ());
+        }
+
+        public boolean hasLink(SmelterLink.Kind kind) {
+            return getLinkWorldId(kind) >= 0;
+        }
+
+        int getLinkWorldId(SmelterLink.Kind kind) {
+            return links == null ? -1 : (int) links[kind.ordinal() * 2];
+        }
+
+        long getLinkBlock(SmelterLink.Kind kind) {
+            return links == null ? 0L : links[kind.ordinal() * 2 + 1];
+        }
+
+        int getLinkedIndex() {
+            return links == null ? -1 : (int) links[links.length - 1];
+        }
+
+        void setLinkedIndex(int index) {
+            links[links.length - 1] = index;
+        }
+
+        public void setLink(SmelterLink.Kind kind, Location target) {
+            if (target == null) {
+                setLink(kind, -1, 0L);
+            } else {
+                setLink(kind, WORLDS.intern(target.getWorld()),
+                        SmelterIndex.packBlock(target.getBlockX(), target.getBlockY(), target.getBlockZ()));
+            }
+        }
+
+        void setLink(SmelterLink.Kind kind, int worldId, long target) {
+            if (links == null) {
+                if (worldId < 0) {
+                    return;
+                }
+                links = new long[SmelterLink.Kind.values().length * 2 + 1];
+                for (int i = 0; i < links.length; i += 2) {
+                    links[i] = -1L;
+                }
+            }
+            links[kind.ordinal() * 2] = worldId;
+            links[kind.ordinal() * 2 + 1] = target;
+        }
+
+        public boolean hasLinks() {
+            if (links != null) {
+                for (int i = 0; i < links.length - 1; i += 2) {
+                    if (links[i] >= 0) {
+                        return true;
+                    }
+                }
+            }
+            return false;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,266 @@
+package com.Lino.remoteSmelter;
+
+import java.sql.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+public final class SchemaMigrations {
+
+    interface Migration {
+        int version();
+
+        String description();
+
+        void apply(Connection connection, JdbcStorage storage) throws SQLException;
+    }
+
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+            new CreateLegacySmelters(),
+            new NormalizeWorldsAndUuids(),
+            new CreateSmelterLinks(),
+            new CreateChangeLog()
+    );
+
+    private SchemaMigrations() {
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    public static void migrate(Connection connection, JdbcStorage storage, Logger logger) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (version INTEGER NOT NULL)");
+        }
+
+        int current = currentVersion(connection);
+        if (current > latestVersion()) {
+            throw new SQLException("Database schema version " + current + " is newer than this plugin supports ("
+                    + latestVersion() + ")");
+        }
+
+        if (current < latestVersion()) {
+            storage.beforeMigration(current);
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+
+            logger.info("Migrating smelter database to version " + migration.version() + ": " + migration.description());
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                migration.apply(connection, storage);
+                setVersion(connection, migration.version());
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            current = migration.version();
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            if (rs.next()) {
+                int version = rs.getInt(1);
+                if (!rs.wasNull()) {
+                    return version;
+                }
+            }
+        }
+
+        return tableExists(connection, "smelters") ? 1 : 0;
+    }
+
+    private static void setVersion(Connection connection, int version) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DELETE FROM schema_version");
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement("INSERT INTO schema_version (version) VALUES (?)")) {
+            pstmt.setInt(1, version);
+            pstmt.executeUpdate();
+        }
+    }
+
+    static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                if (table.equalsIgnoreCase(rs.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class CreateLegacySmelters implements Migration {
+
+        @Override
+        public int version() {
+            return 1;
+        }
+
+        @Override
+        public String description() {
+            return "create smelters table";
+        }
+
+        @Override
+        public void apply(Connection connection, JdbcStorage storage) throws SQLException {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS smelters (" +
+                        "id " + storage.autoIncrementKey() + "," +
+                        "uuid " + storage.textType(36) + " NOT NULL," +
+                        "name " + storage.textType(255) + " NOT NULL," +
+                        "world " + storage.textType(255) + " NOT NULL," +
+                        "x INTEGER NOT NULL," +
+                        "y INTEGER NOT NULL," +
+                        "z INTEGER NOT NULL," +
+                        "UNIQUE(uuid, name))");
+            }
+        }
+    }
+
+    private static class NormalizeWorldsAndUuids implements Migration {
+
+        @Override
+        public int version() {
+            return 2;
+        }
+
+        @Override
+        public String description() {
+            return "move worlds to their own table, store UUIDs as binary and index locations";
+        }
+
+        @Override
+        public void apply(Connection connection, JdbcStorage storage) throws SQLException {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE worlds (" +
+                        "id " + storage.autoIncrementKey() + "," +
+                        "name " + storage.textType(255) + " NOT NULL UNIQUE)");
+                stmt.execute("CREATE TABLE smelters_v2 (" +
+                        "id " + storage.autoIncrementKey() + "," +
+                        "uuid " + storage.uuidType() + " NOT NULL," +
+                        "name " + storage.textType(255) + " NOT NULL," +
+                        "world_id INTEGER NOT NULL REFERENCES worlds(id)," +
+                        "x INTEGER NOT NULL," +
+                        "y INTEGER NOT NULL," +
+                        "z INTEGER NOT NULL," +
+                        "UNIQUE(uuid, name))");
+            }
+
+            Map<String, Integer> worldIds = new HashMap<>();
+            Set<String> seenLocations = new HashSet<>();
+            String insert = "INSERT INTO smelters_v2 (uuid, name, world_id, x, y, z) VALUES (?, ?, ?, ?, ?, ?)";
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT uuid, name, world, x, y, z FROM smelters ORDER BY id");
+                 PreparedStatement pstmt = connection.prepareStatement(insert)) {
+
+                while (rs.next()) {
+                    String world = rs.getString("world");
+                    int x = rs.getInt("x");
+                    int y = rs.getInt("y");
+                    int z = rs.getInt("z");
+
+                    if (!seenLocations.add(world + ":" + x + ":" + y + ":" + z)) {
+                        continue;
+                    }
+
+                    Integer worldId = worldIds.get(world);
+                    if (worldId == null) {
+                        worldId = storage.worldId(connection, world, true);
+                        worldIds.put(world, worldId);
+                    }
+
+                    pstmt.setBytes(1, JdbcStorage.toBytes(UUID.fromString(rs.getString("uuid"))));
+                    pstmt.setString(2, rs.getString("name"));
+                    pstmt.setInt(3, worldId);
+                    pstmt.setInt(4, x);
+                    pstmt.setInt(5, y);
+                    pstmt.setInt(6, z);
+                    pstmt.addBatch();
+                }
+
+                pstmt.executeBatch();
+            }
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE smelters");
+                stmt.execute("ALTER TABLE smelters_v2 RENAME TO smelters");
+                stmt.execute("CREATE UNIQUE INDEX idx_smelters_location ON smelters (world_id, x, y, z)");
+            }
+        }
+    }
+
+    private static class CreateSmelterLinks implements Migration {
+
+        @Override
+        public int version() {
+            return 3;
+        }
+
+        @Override
+        public String description() {
+            return "create smelter_links table for input and output containers";
+        }
+
+        @Override
+        public void apply(Connection connection, JdbcStorage storage) throws SQLException {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE smelter_links (" +
+                        "smelter_id INTEGER NOT NULL REFERENCES smelters(id) ON DELETE CASCADE," +
+                        "kind INTEGER NOT NULL," +
+                        "world_id INTEGER NOT NULL REFERENCES worlds(id)," +
+                        "x INTEGER NOT NULL," +
+                        "y INTEGER NOT NULL," +
+                        "z INTEGER NOT NULL," +
+                        "PRIMARY KEY (smelter_id, kind))");
+            }
+        }
+    }
+
+    private static class CreateChangeLog implements Migration {
+
+        @Override
+        public int version() {
+            return 4;
+        }
+
+        @Override
+        public String description() {
+            return "create smelter_changes log for servers sharing one database";
+        }
+
+        @Override
+        public void apply(Connection connection, JdbcStorage storage) throws SQLException {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE smelter_changes (" +
+                        "seq " + storage.autoIncrementKey() + "," +
+                        "origin " + storage.textType(36) + " NOT NULL," +
+                        "type INTEGER NOT NULL," +
+                        "uuid " + storage.uuidType() + "," +
+                        "name " + storage.textType(255) + "," +
+                        "world " + storage.textType(255) + " NOT NULL," +
+                        "x INTEGER NOT NULL," +
+                        "y INTEGER NOT NULL," +
+                        "z INTEGER NOT NULL," +
+                        "kind INTEGER," +
+                        "target_world " + storage.textType(255) + "," +
+                        "target_x INTEGER," +
+                        "target_y INTEGER," +
+                        "target_z INTEGER," +
+                        "created_at BIGINT NOT NULL)");
+                stmt.execute("CREATE INDEX idx_smelter_changes_created ON smelter_changes (created_at)");
+            }
+        }
+    }
+}
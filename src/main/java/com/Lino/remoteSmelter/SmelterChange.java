@@ -0,0 +1,14 @@
+package com.Lino.remoteSmelter;
+
+public class SmelterChange {
+
+    final long seq;
+    final String origin;
+    final StorageMutation mutation;
+
+    public SmelterChange(long seq, String origin, StorageMutation mutation) {
+        this.seq = seq;
+        this.origin = origin;
+        this.mutation = mutation;
+    }
+}
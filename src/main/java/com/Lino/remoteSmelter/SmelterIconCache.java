@@ -0,0 +1,76 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public class SmelterIconCache {
+
+    private final MessageManager messageManager;
+    private final Map<RemoteSmelter.SmelterData, Icon> icons = new WeakHashMap<>();
+
+    public SmelterIconCache(MessageManager messageManager) {
+        this.messageManager = messageManager;
+    }
+
+    public ItemStack get(RemoteSmelter.SmelterData data, Material material, boolean active) {
+        Icon icon = icons.get(data);
+        if (icon == null || icon.material != material || icon.active != active) {
+            icon = new Icon(material, active, render(data, material, active));
+            icons.put(data, icon);
+        }
+        return icon.item;
+    }
+
+    public void invalidate(RemoteSmelter.SmelterData data) {
+        icons.remove(data);
+    }
+
+    public void clear() {
+        icons.clear();
+    }
+
+    private ItemStack render(RemoteSmelter.SmelterData data, Material material, boolean active) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+
+        meta.setDisplayName(ChatColor.GREEN + data.name);
+        List<String> lore = new ArrayList<>(6);
+        lore.add(messageManager.getMessage("gui.location",
+                "{X}", data.getX(),
+                "{Y}", data.getY(),
+                "{Z}", data.getZ()));
+        lore.add(messageManager.getMessage("gui.world", "{WORLD}", data.getWorldName()));
+
+        String status = active ?
+                messageManager.getMessage("gui.status-active") :
+                messageManager.getMessage("gui.status-inactive");
+        lore.add(messageManager.getMessage("gui.status", "{STATUS}", status));
+
+        lore.add("");
+        lore.add(messageManager.getMessage("gui.click-access"));
+        lore.add(messageManager.getMessage("gui.shift-delete"));
+
+        meta.setLore(lore);
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    private static final class Icon {
+        final Material material;
+        final boolean active;
+        final ItemStack item;
+
+        Icon(Material material, boolean active, ItemStack item) {
+            this.material = material;
+            this.active = active;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SmelterIndex {
+
+    private WorldIndex[] worlds = new WorldIndex[4];
+    private final List<List<RemoteSmelter.SmelterData>> owners = new ArrayList<>();
+    private final List<ChunkBucket> loadedChunks = new ArrayList<>();
+    private final List<RemoteSmelter.SmelterData> activeSmelters = new ArrayList<>();
+    private RemoteSmelter.SmelterData[] loadedSmelters = new RemoteSmelter.SmelterData[0];
+    private int loadedSmelterCount;
+    private boolean loadedSmeltersDirty;
+
+    public static long packBlock(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    public static long packChunk(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private WorldIndex worldIndex(int worldId) {
+        return worldId >= 0 && worldId < worlds.length ? worlds[worldId] : null;
+    }
+
+    private WorldIndex worldIndex(World world) {
+        return worldIndex(RemoteSmelter.SmelterData.WORLDS.indexOf(world));
+    }
+
+    public void add(RemoteSmelter.SmelterData data) {
+        if (data.worldId >= worlds.length) {
+            worlds = Arrays.copyOf(worlds, Math.max(data.worldId + 1, worlds.length << 1));
+        }
+        WorldIndex index = worlds[data.worldId];
+        if (index == null) {
+            index = new WorldIndex();
+            worlds[data.worldId] = index;
+        }
+        int x = data.getX();
+        int z = data.getZ();
+
+        RemoteSmelter.SmelterData previous = index.blocks.put(data.block, data);
+        if (previous != null) {
+            removeFromChunk(index, previous);
+        }
+
+        while (owners.size() <= data.ownerId) {
+            owners.add(null);
+        }
+        List<RemoteSmelter.SmelterData> owned = owners.get(data.ownerId);
+        if (owned == null) {
+            owned = new ArrayList<>(2);
+            owners.set(data.ownerId, owned);
+        }
+        owned.add(data);
+
+        long chunkKey = packChunk(x >> 4, z >> 4);
+        ChunkBucket bucket = index.chunks.get(chunkKey);
+        if (bucket == null) {
+            bucket = new ChunkBucket(x >> 4, z >> 4);
+            index.chunks.put(chunkKey, bucket);
+            World world = data.getWorld();
+            if (world != null && world.isChunkLoaded(bucket.x, bucket.z)) {
+                markLoaded(bucket);
+            }
+        }
+        bucket.smelters.add(data);
+        if (bucket.isLoaded()) {
+            loadedSmeltersDirty = true;
+        }
+    }
+
+    public RemoteSmelter.SmelterData remove(World world, int x, int y, int z) {
+        return remove(worldIndex(world), packBlock(x, y, z));
+    }
+
+    public RemoteSmelter.SmelterData remove(RemoteSmelter.SmelterData data) {
+        return remove(worldIndex(data.worldId), data.block);
+    }
+
+    private RemoteSmelter.SmelterData remove(WorldIndex index, long block) {
+        if (index == null) {
+            return null;
+        }
+
+        RemoteSmelter.SmelterData removed = index.blocks.remove(block);
+        if (removed != null) {
+            removeFromChunk(index, removed);
+        }
+        return removed;
+    }
+
+    public List<RemoteSmelter.SmelterData> getOwned(int ownerId) {
+        List<RemoteSmelter.SmelterData> owned = ownerId >= 0 && ownerId < owners.size() ? owners.get(ownerId) : null;
+        return owned == null ? Collections.emptyList() : owned;
+    }
+
+    public RemoteSmelter.SmelterData get(int worldId, long block) {
+        WorldIndex index = worldIndex(worldId);
+        return index == null ? null : index.blocks.get(block);
+    }
+
+    public RemoteSmelter.SmelterData get(World world, int x, int y, int z) {
+        WorldIndex index = worldIndex(world);
+        return index == null ? null : index.blocks.get(packBlock(x, y, z));
+    }
+
+    public boolean contains(World world, int x, int y, int z) {
+        return get(world, x, y, z) != null;
+    }
+
+    public boolean contains(Location location) {
+        return contains(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public ChunkBucket getChunk(World world, int chunkX, int chunkZ) {
+        WorldIndex index = worldIndex(world);
+        return index == null ? null : index.chunks.get(packChunk(chunkX, chunkZ));
+    }
+
+    public ChunkBucket chunkLoaded(World world, int chunkX, int chunkZ) {
+        ChunkBucket bucket = getChunk(world, chunkX, chunkZ);
+        if (bucket != null) {
+            markLoaded(bucket);
+        }
+        return bucket;
+    }
+
+    public ChunkBucket chunkUnloaded(World world, int chunkX, int chunkZ) {
+        ChunkBucket bucket = getChunk(world, chunkX, chunkZ);
+        if (bucket != null) {
+            markUnloaded(bucket);
+        }
+        return bucket;
+    }
+
+    public void worldUnloaded(World world) {
+        WorldIndex index = worldIndex(world);
+        if (index != null) {
+            index.chunks.forEachValue(this::markUnloaded);
+        }
+    }
+
+    public boolean markActive(RemoteSmelter.SmelterData data) {
+        if (data.activeIndex >= 0) {
+            return false;
+        }
+        data.activeIndex = activeSmelters.size();
+        activeSmelters.add(data);
+        return true;
+    }
+
+    public boolean markIdle(RemoteSmelter.SmelterData data) {
+        int i = data.activeIndex;
+        if (i < 0) {
+            return false;
+        }
+
+        RemoteSmelter.SmelterData last = activeSmelters.remove(activeSmelters.size() - 1);
+        if (last != data) {
+            activeSmelters.set(i, last);
+            last.activeIndex = i;
+        }
+        data.activeIndex = -1;
+        return true;
+    }
+
+    public boolean isActive(RemoteSmelter.SmelterData data) {
+        return data.activeIndex >= 0;
+    }
+
+    public List<RemoteSmelter.SmelterData> getActiveSmelters() {
+        return activeSmelters;
+    }
+
+    public List<ChunkBucket> getLoadedChunks() {
+        return loadedChunks;
+    }
+
+    public RemoteSmelter.SmelterData[] getLoadedSmelters() {
+        if (loadedSmeltersDirty) {
+            rebuildLoadedSmelters();
+        }
+        return loadedSmelters;
+    }
+
+    public int getLoadedSmelterCount() {
+        if (loadedSmeltersDirty) {
+            rebuildLoadedSmelters();
+        }
+        return loadedSmelterCount;
+    }
+
+    private void rebuildLoadedSmelters() {
+        int count = 0;
+        for (int i = 0; i < loadedChunks.size(); i++) {
+            count += loadedChunks.get(i).smelters.size();
+        }
+
+        if (count > loadedSmelters.length) {
+            loadedSmelters = new RemoteSmelter.SmelterData[Math.max(count, loadedSmelters.length + (loadedSmelters.length >> 1))];
+        }
+
+        int n = 0;
+        for (int i = 0; i < loadedChunks.size(); i++) {
+            List<RemoteSmelter.SmelterData> smelters = loadedChunks.get(i).smelters;
+            for (int j = 0; j < smelters.size(); j++) {
+                loadedSmelters[n++] = smelters.get(j);
+            }
+        }
+
+        Arrays.fill(loadedSmelters, n, loadedSmelterCount > n ? loadedSmelterCount : n, null);
+        loadedSmelterCount = n;
+        loadedSmeltersDirty = false;
+    }
+
+    private void markLoaded(ChunkBucket bucket) {
+        if (bucket.loadedIndex >= 0) {
+            return;
+        }
+        bucket.loadedIndex = loadedChunks.size();
+        loadedChunks.add(bucket);
+        loadedSmeltersDirty = true;
+    }
+
+    private void markUnloaded(ChunkBucket bucket) {
+        int i = bucket.loadedIndex;
+        if (i < 0) {
+            return;
+        }
+
+        ChunkBucket last = loadedChunks.remove(loadedChunks.size() - 1);
+        if (last != bucket) {
+            loadedChunks.set(i, last);
+            last.loadedIndex = i;
+        }
+        bucket.loadedIndex = -1;
+        loadedSmeltersDirty = true;
+
+        for (int j = 0; j < bucket.smelters.size(); j++) {
+            markIdle(bucket.smelters.get(j));
+        }
+    }
+
+    private void removeFromChunk(WorldIndex index, RemoteSmelter.SmelterData data) {
+        markIdle(data);
+        List<RemoteSmelter.SmelterData> owned = owners.get(data.ownerId);
+        owned.remove(data);
+        if (owned.isEmpty()) {
+            owners.set(data.ownerId, null);
+        }
+        int x = data.getX();
+        int z = data.getZ();
+        long chunkKey = packChunk(x >> 4, z >> 4);
+        ChunkBucket bucket = index.chunks.get(chunkKey);
+        if (bucket == null) {
+            return;
+        }
+        bucket.smelters.remove(data);
+        if (bucket.isLoaded()) {
+            loadedSmeltersDirty = true;
+        }
+        if (bucket.smelters.isEmpty()) {
+            index.chunks.remove(chunkKey);
+            markUnloaded(bucket);
+        }
+    }
+
+    public List<RemoteSmelter.SmelterData> getAllSmelters() {
+        List<RemoteSmelter.SmelterData> result = new ArrayList<>(size());
+        for (WorldIndex index : worlds) {
+            if (index != null) {
+                index.blocks.forEachValue(result::add);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        int size = 0;
+        for (WorldIndex index : worlds) {
+            if (index != null) {
+                size += index.blocks.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(worlds, null);
+        owners.clear();
+        loadedChunks.clear();
+        for (RemoteSmelter.SmelterData data : activeSmelters) {
+            data.activeIndex = -1;
+        }
+        activeSmelters.clear();
+        loadedSmeltersDirty = true;
+    }
+
+    public static class ChunkBucket {
+        final int x;
+        final int z;
+        final List<RemoteSmelter.SmelterData> smelters = new ArrayList<>(2);
+        private int loadedIndex = -1;
+
+        ChunkBucket(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        public boolean isLoaded() {
+            return loadedIndex >= 0;
+        }
+    }
+
+    private static class WorldIndex {
+        final LongObjectMap<RemoteSmelter.SmelterData> blocks = new LongObjectMap<>();
+        final LongObjectMap<ChunkBucket> chunks = new LongObjectMap<>();
+    }
+}
@@ -0,0 +1,29 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+
+import java.util.UUID;
+
+public class SmelterLink {
+
+    public enum Kind {
+        INPUT,
+        OUTPUT;
+
+        public static Kind byId(int id) {
+            return id >= 0 && id < values().length ? values()[id] : null;
+        }
+    }
+
+    final UUID owner;
+    final String smelter;
+    final Kind kind;
+    final Location target;
+
+    public SmelterLink(UUID owner, String smelter, Kind kind, Location target) {
+        this.owner = owner;
+        this.smelter = smelter;
+        this.kind = kind;
+        this.target = target;
+    }
+}
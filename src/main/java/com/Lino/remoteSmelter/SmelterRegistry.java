@@ -0,0 +1,103 @@
+package com.Lino.remoteSmelter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SmelterRegistry {
+
+    private final ConcurrentHashMap<UUID, Snapshot> players = new ConcurrentHashMap<>();
+
+    public Map<String, RemoteSmelter.SmelterData> get(UUID owner) {
+        Snapshot snapshot = players.get(owner);
+        return snapshot == null ? null : snapshot.smelters;
+    }
+
+    public boolean isLoaded(UUID owner) {
+        return players.containsKey(owner);
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    public List<String> complete(UUID owner, String prefix) {
+        Snapshot snapshot = players.get(owner);
+        if (snapshot == null) {
+            return new ArrayList<>();
+        }
+
+        String[] names = snapshot.names;
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (int i = low; i < names.length && names[i].regionMatches(true, 0, prefix, 0, prefix.length()); i++) {
+            result.add(names[i]);
+        }
+        return result;
+    }
+
+    public void load(UUID owner, Map<String, RemoteSmelter.SmelterData> smelters) {
+        players.putIfAbsent(owner, new Snapshot(new HashMap<>(smelters)));
+    }
+
+    public void unload(UUID owner) {
+        players.remove(owner);
+    }
+
+    public boolean put(RemoteSmelter.SmelterData data) {
+        return players.computeIfPresent(data.getOwner(), (owner, current) -> {
+            Map<String, RemoteSmelter.SmelterData> next = new HashMap<>(current.smelters);
+            next.put(data.name, data);
+            return new Snapshot(next);
+        }) != null;
+    }
+
+    public boolean remove(RemoteSmelter.SmelterData data) {
+        boolean[] removed = new boolean[1];
+        players.computeIfPresent(data.getOwner(), (owner, current) -> {
+            if (current.smelters.get(data.name) != data) {
+                return current;
+            }
+            Map<String, RemoteSmelter.SmelterData> next = new HashMap<>(current.smelters);
+            next.remove(data.name);
+            removed[0] = true;
+            return new Snapshot(next);
+        });
+        return removed[0];
+    }
+
+    public boolean replace(RemoteSmelter.SmelterData previous, RemoteSmelter.SmelterData data) {
+        boolean[] replaced = new boolean[1];
+        players.computeIfPresent(data.getOwner(), (owner, current) -> {
+            if (current.smelters.get(previous.name) != previous || current.smelters.containsKey(data.name)) {
+                return current;
+            }
+            Map<String, RemoteSmelter.SmelterData> next = new HashMap<>(current.smelters);
+            next.remove(previous.name);
+            next.put(data.name, data);
+            replaced[0] = true;
+            return new Snapshot(next);
+        });
+        return replaced[0];
+    }
+
+    private static final class Snapshot {
+        final Map<String, RemoteSmelter.SmelterData> smelters;
+        final String[] names;
+
+        Snapshot(Map<String, RemoteSmelter.SmelterData> smelters) {
+            this.smelters = Collections.unmodifiableMap(smelters);
+            this.names = smelters.keySet().toArray(new String[0]);
+            Arrays.sort(names, String.CASE_INSENSITIVE_ORDER);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SmelterScheduler implements Runnable {
+
+    public interface SmelterTask {
+        boolean process(RemoteSmelter.SmelterData data);
+    }
+
+    public interface TransferTask {
+        int transfer(RemoteSmelter.SmelterData data, int budget);
+    }
+
+    private static final double TICK_MILLIS = 50.0;
+    private static final double EWMA_WEIGHT = 0.1;
+
+    private final SmelterIndex index;
+    private final SmelterTask task;
+    private final TransferTask transferTask;
+    private final List<RemoteSmelter.SmelterData> linked = new ArrayList<>();
+    private final List<LongObjectMap<List<RemoteSmelter.SmelterData>>> linkTargets = new ArrayList<>();
+    private final Method averageTickTime;
+    private final PerformanceMetrics.Timer tickTimer;
+    private final LongAdder smeltersTicked;
+    private final PerformanceMetrics.Timer transferTimer;
+    private final LongAdder itemsTransferred;
+    private int periodTicks = 20;
+    private long budgetNanos = 1_000_000L;
+    private double softMspt = 40.0;
+    private double hardMspt = 50.0;
+    private double minBudgetScale = 0.1;
+    private int transferItemsPerTick = 64;
+
+    private int cursor;
+    private int transferCursor;
+    private long lastRun;
+    private double intervalMillis = TICK_MILLIS;
+    private double budgetScale = 1.0;
+
+    public SmelterScheduler(SmelterIndex index, SmelterTask task, TransferTask transferTask, PerformanceMetrics metrics) {
+        this.index = index;
+        this.task = task;
+        this.transferTask = transferTask;
+        this.tickTimer = metrics.timer("smelter_tick");
+        this.smeltersTicked = metrics.counter("smelters_ticked");
+        this.transferTimer = metrics.timer("smelter_transfer");
+        this.itemsTransferred = metrics.counter("items_transferred");
+        this.averageTickTime = findAverageTickTime();
+    }
+
+    private static Method findAverageTickTime() {
+        try {
+            return Bukkit.getServer().getClass().getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public void configure(ConfigurationSection config) {
+        if (config == null) {
+            return;
+        }
+        periodTicks = Math.max(1, config.getInt("period-ticks", 20));
+        budgetNanos = Math.max(1L, config.getLong("budget-micros", 1000L)) * 1000L;
+        softMspt = config.getDouble("soft-mspt", 40.0);
+        hardMspt = Math.max(softMspt + 1.0, config.getDouble("hard-mspt", 50.0));
+        minBudgetScale = Math.min(1.0, Math.max(0.0, config.getDouble("min-budget-scale", 0.1)));
+        transferItemsPerTick = Math.max(0, config.getInt("transfer-items-per-tick", 64));
+    }
+
+    public void markActive(RemoteSmelter.SmelterData data) {
+        index.markActive(data);
+    }
+
+    public void addLinked(RemoteSmelter.SmelterData data) {
+        if (!data.hasLinks() || data.getLinkedIndex() >= 0) {
+            return;
+        }
+        data.setLinkedIndex(linked.size());
+        linked.add(data);
+        for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+            indexTarget(data, kind);
+        }
+    }
+
+    public void removeLinked(RemoteSmelter.SmelterData data) {
+        int slot = data.getLinkedIndex();
+        if (slot < 0) {
+            return;
+        }
+        for (SmelterLink.Kind kind : SmelterLink.Kind.values()) {
+            removeTarget(data, data.getLinkWorldId(kind), data.getLinkBlock(kind));
+        }
+
+        RemoteSmelter.SmelterData last = linked.remove(linked.size() - 1);
+        if (last != data) {
+            linked.set(slot, last);
+            last.setLinkedIndex(slot);
+        }
+        data.setLinkedIndex(-1);
+    }
+
+    public void setLink(RemoteSmelter.SmelterData data, SmelterLink.Kind kind, Location target) {
+        if (data.getLinkedIndex() >= 0) {
+            unindexTarget(data, kind);
+            data.setLink(kind, target);
+            if (data.hasLinks()) {
+                indexTarget(data, kind);
+            } else {
+                removeLinked(data);
+            }
+        } else {
+            data.setLink(kind, target);
+            addLinked(data);
+        }
+    }
+
+    public List<RemoteSmelter.SmelterData> getLinkedTo(int worldId, long block) {
+        LongObjectMap<List<RemoteSmelter.SmelterData>> targets = worldId >= 0 && worldId < linkTargets.size()
+                ? linkTargets.get(worldId) : null;
+        List<RemoteSmelter.SmelterData> smelters = targets == null ? null : targets.get(block);
+        return smelters == null ? Collections.emptyList() : smelters;
+    }
+
+    private void indexTarget(RemoteSmelter.SmelterData data, SmelterLink.Kind kind) {
+        int worldId = data.getLinkWorldId(kind);
+        if (worldId < 0) {
+            return;
+        }
+        while (linkTargets.size() <= worldId) {
+            linkTargets.add(null);
+        }
+        LongObjectMap<List<RemoteSmelter.SmelterData>> targets = linkTargets.get(worldId);
+        if (targets == null) {
+            targets = new LongObjectMap<>();
+            linkTargets.set(worldId, targets);
+        }
+        long block = data.getLinkBlock(kind);
+        List<RemoteSmelter.SmelterData> smelters = targets.get(block);
+        if (smelters == null) {
+            smelters = new ArrayList<>(2);
+            targets.put(block, smelters);
+        }
+        if (!smelters.contains(data)) {
+            smelters.add(data);
+        }
+    }
+
+    private void unindexTarget(RemoteSmelter.SmelterData data, SmelterLink.Kind kind) {
+        int worldId = data.getLinkWorldId(kind);
+        long block = data.getLinkBlock(kind);
+        for (SmelterLink.Kind other : SmelterLink.Kind.values()) {
+            if (other != kind && data.getLinkWorldId(other) == worldId && data.getLinkBlock(other) == block) {
+                return;
+            }
+        }
+        removeTarget(data, worldId, block);
+    }
+
+    private void removeTarget(RemoteSmelter.SmelterData data, int worldId, long block) {
+        if (worldId < 0 || worldId >= linkTargets.size() || linkTargets.get(worldId) == null) {
+            return;
+        }
+
+        LongObjectMap<List<RemoteSmelter.SmelterData>> targets = linkTargets.get(worldId);
+        List<RemoteSmelter.SmelterData> smelters = targets.get(block);
+        if (smelters != null && smelters.remove(data) && smelters.isEmpty()) {
+            targets.remove(block);
+        }
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        updateBudgetScale(start);
+
+        runTransfers();
+
+        start = System.nanoTime();
+        List<RemoteSmelter.SmelterData> active = index.getActiveSmelters();
+        int count = active.size();
+        if (count == 0) {
+            cursor = 0;
+            return;
+        }
+
+        int quota = (count + periodTicks - 1) / periodTicks;
+        long deadline = start + (long) (budgetNanos * budgetScale);
+        int processed = 0;
+
+        while (processed < quota && !active.isEmpty()) {
+            if (cursor >= active.size()) {
+                cursor = 0;
+            }
+            RemoteSmelter.SmelterData data = active.get(cursor);
+            if (task.process(data)) {
+                cursor++;
+            } else {
+                index.markIdle(data);
+            }
+            processed++;
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        smeltersTicked.add(processed);
+        tickTimer.record(System.nanoTime() - start);
+    }
+
+    private void runTransfers() {
+        int count = linked.size();
+        if (count == 0 || transferItemsPerTick == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + (long) (budgetNanos * budgetScale);
+        int budget = Math.max(1, (int) (transferItemsPerTick * budgetScale));
+
+        int moved = 0;
+        for (int visited = 0; visited < count && moved < budget; visited++) {
+            if (transferCursor >= count) {
+                transferCursor = 0;
+            }
+            moved += transferTask.transfer(linked.get(transferCursor++), budget - moved);
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        itemsTransferred.add(moved);
+        transferTimer.record(System.nanoTime() - start);
+    }
+
+    private void updateBudgetScale(long now) {
+        if (lastRun != 0L) {
+            intervalMillis += ((now - lastRun) / 1_000_000.0 - intervalMillis) * EWMA_WEIGHT;
+        }
+        lastRun = now;
+
+        if (averageTickTime == null) {
+            budgetScale = intervalMillis > TICK_MILLIS * 1.05 ? minBudgetScale : 1.0;
+            return;
+        }
+
+        double mspt = getMspt();
+        if (mspt <= softMspt) {
+            budgetScale = 1.0;
+        } else if (mspt >= hardMspt) {
+            budgetScale = minBudgetScale;
+        } else {
+            double over = (mspt - softMspt) / (hardMspt - softMspt);
+            budgetScale = Math.max(minBudgetScale, 1.0 - over * (1.0 - minBudgetScale));
+        }
+    }
+
+    public double getMspt() {
+        if (averageTickTime != null) {
+            try {
+                return ((Number) averageTickTime.invoke(Bukkit.getServer())).doubleValue();
+            } catch (ReflectiveOperationException | ClassCastException ignored) {
+            }
+        }
+        return intervalMillis;
+    }
+
+    public double getBudgetScale() {
+        return budgetScale;
+    }
+}
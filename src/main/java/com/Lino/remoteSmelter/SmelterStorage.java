@@ -0,0 +1,28 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface SmelterStorage {
+
+    void initialize() throws StorageException;
+
+    void close();
+
+    List<StorageMutation> applyMutations(List<StorageMutation> batch);
+
+    Map<UUID, Map<String, RemoteSmelter.SmelterData>> loadAllSmelters();
+
+    List<SmelterLink> loadAllLinks();
+
+    Map<String, RemoteSmelter.SmelterData> getPlayerSmelters(UUID playerUUID);
+
+    boolean smelterExists(UUID playerUUID, String name);
+
+    boolean isLocationRegistered(Location location);
+
+    Map.Entry<UUID, String> getSmelterOwner(Location location);
+}
@@ -0,0 +1,82 @@
+package com.Lino.remoteSmelter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SmelterView extends MenuHolder {
+
+    public enum Sort {
+        NAME,
+        WORLD,
+        ACTIVE;
+
+        public Sort next() {
+            return values()[(ordinal() + 1) % values().length];
+        }
+    }
+
+    static final int MAX_PAGE_SIZE = 45;
+
+    final int pageSize;
+    final RemoteSmelter.SmelterData[] slots;
+    final boolean[] active;
+    List<RemoteSmelter.SmelterData> entries = new ArrayList<>();
+    Sort sort = Sort.NAME;
+    String filter = "";
+    int page;
+
+    public SmelterView(int size, String title) {
+        super(size, title);
+        this.pageSize = size - 9;
+        this.slots = new RemoteSmelter.SmelterData[pageSize];
+        this.active = new boolean[pageSize];
+    }
+
+    static int inventorySize(int smelters) {
+        int rows = Math.min(MAX_PAGE_SIZE / 9, Math.max(1, (smelters + 8) / 9));
+        return (rows + 1) * 9;
+    }
+
+    public int getPageCount() {
+        return Math.max(1, (entries.size() + pageSize - 1) / pageSize);
+    }
+
+    public boolean isControlSlot(int rawSlot) {
+        return rawSlot >= pageSize && rawSlot < inventory.getSize();
+    }
+
+    public int previousSlot() {
+        return pageSize;
+    }
+
+    public int sortSlot() {
+        return pageSize + 3;
+    }
+
+    public int pageSlot() {
+        return pageSize + 4;
+    }
+
+    public int filterSlot() {
+        return pageSize + 5;
+    }
+
+    public int nextSlot() {
+        return pageSize + 8;
+    }
+
+    public RemoteSmelter.SmelterData getSmelter(int slot) {
+        return slot >= 0 && slot < pageSize ? slots[slot] : null;
+    }
+
+    public void set(int slot, RemoteSmelter.SmelterData data, boolean lit) {
+        slots[slot] = data;
+        active[slot] = lit;
+    }
+
+    public void clear(int slot) {
+        slots[slot] = null;
+        active[slot] = false;
+        inventory.setItem(slot, null);
+    }
+}
@@ -0,0 +1,113 @@
+package com.Lino.remoteSmelter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+public class SqliteStorage extends JdbcStorage {
+
+    private final String dbFile;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Connection connection;
+
+    public SqliteStorage(File file, Logger logger) {
+        super(logger);
+        this.dbFile = file.getPath();
+    }
+
+    @Override
+    public void initialize() throws StorageException {
+        try {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA synchronous=NORMAL");
+                stmt.execute("PRAGMA foreign_keys=ON");
+                stmt.execute("PRAGMA busy_timeout=5000");
+                stmt.execute("PRAGMA temp_store=MEMORY");
+            }
+            migrateSchema();
+        } catch (SQLException e) {
+            throw new StorageException("Could not open SQLite database " + dbFile, e);
+        }
+    }
+
+    @Override
+    protected Connection acquire() throws SQLException {
+        lock.lock();
+        if (connection == null || connection.isClosed()) {
+            lock.unlock();
+            throw new SQLException("SQLite connection is closed");
+        }
+        return connection;
+    }
+
+    @Override
+    protected void release(Connection connection) {
+        lock.unlock();
+    }
+
+    @Override
+    protected String autoIncrementKey() {
+        return "INTEGER PRIMARY KEY AUTOINCREMENT";
+    }
+
+    @Override
+    protected String textType(int length) {
+        return "TEXT";
+    }
+
+    @Override
+    protected String uuidType() {
+        return "BLOB";
+    }
+
+    @Override
+    protected String upsertSql() {
+        return "INSERT OR REPLACE INTO smelters (uuid, name, world_id, x, y, z) VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    @Override
+    protected String linkUpsertSql() {
+        return "INSERT OR REPLACE INTO smelter_links (smelter_id, kind, world_id, x, y, z) " +
+                "SELECT id, ?, ?, ?, ?, ? FROM smelters WHERE uuid = ? AND name = ?";
+    }
+
+    @Override
+    protected void beforeMigration(int fromVersion) {
+        if (fromVersion == 0) {
+            return;
+        }
+
+        String backup = dbFile + ".v" + fromVersion + ".bak";
+        try (PreparedStatement pstmt = connection.prepareStatement("VACUUM INTO ?")) {
+            Files.deleteIfExists(Paths.get(backup));
+            pstmt.setString(1, backup);
+            pstmt.execute();
+        } catch (IOException | SQLException e) {
+            logger.warning("Could not back up " + dbFile + " before migrating: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
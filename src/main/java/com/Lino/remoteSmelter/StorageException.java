@@ -0,0 +1,12 @@
+package com.Lino.remoteSmelter;
+
+public class StorageException extends Exception {
+
+    public StorageException(String message) {
+        super(message);
+    }
+
+    public StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,115 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Location;
+
+import java.util.UUID;
+
+public final class StorageMutation implements WriteBehindQueue.Keyed {
+
+    public enum Type {
+        ADD(1),
+        REMOVE(0),
+        REMOVE_LOCATION(0),
+        LINK(2),
+        UNLINK(0);
+
+        final int phase;
+
+        Type(int phase) {
+            this.phase = phase;
+        }
+    }
+
+    final Type type;
+    final UUID uuid;
+    final String name;
+    final String world;
+    final int x;
+    final int y;
+    final int z;
+    final SmelterLink.Kind kind;
+    final String smelterWorld;
+    final int smelterX;
+    final int smelterY;
+    final int smelterZ;
+    private final String key;
+
+    private StorageMutation(Type type, UUID uuid, String name, Location smelter, Location target, SmelterLink.Kind kind) {
+        this(type, uuid, name, target == null ? null : target.getWorld().getName(),
+                target == null ? 0 : target.getBlockX(), target == null ? 0 : target.getBlockY(),
+                target == null ? 0 : target.getBlockZ(), kind, smelter.getWorld().getName(),
+                smelter.getBlockX(), smelter.getBlockY(), smelter.getBlockZ());
+    }
+
+    StorageMutation(Type type, UUID uuid, String name, String world, int x, int y, int z, SmelterLink.Kind kind,
+                    String smelterWorld, int smelterX, int smelterY, int smelterZ) {
+        this.type = type;
+        this.uuid = uuid;
+        this.name = name;
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.kind = kind;
+        this.smelterWorld = smelterWorld;
+        this.smelterX = smelterX;
+        this.smelterY = smelterY;
+        this.smelterZ = smelterZ;
+        if (type == Type.REMOVE_LOCATION) {
+            this.key = "location:" + world + ":" + x + ":" + y + ":" + z;
+        } else if (kind != null) {
+            this.key = "link:" + uuid + ":" + name + ":" + kind;
+        } else {
+            this.key = "smelter:" + uuid + ":" + name;
+        }
+    }
+
+    public static StorageMutation add(UUID uuid, String name, Location location) {
+        return new StorageMutation(Type.ADD, uuid, name, location, location, null);
+    }
+
+    public static StorageMutation remove(UUID uuid, String name, Location location) {
+        return new StorageMutation(Type.REMOVE, uuid, name, location, null, null);
+    }
+
+    public static StorageMutation removeByLocation(Location location) {
+        return new StorageMutation(Type.REMOVE_LOCATION, null, null, location, location, null);
+    }
+
+    public static StorageMutation add(RemoteSmelter.SmelterData data) {
+        return of(Type.ADD, data, null);
+    }
+
+    public static StorageMutation remove(RemoteSmelter.SmelterData data) {
+        return of(Type.REMOVE, data, null);
+    }
+
+    public static StorageMutation link(RemoteSmelter.SmelterData data, SmelterLink.Kind kind) {
+        return of(data.getLinkWorldId(kind) < 0 ? Type.UNLINK : Type.LINK, data, kind);
+    }
+
+    private static StorageMutation of(Type type, RemoteSmelter.SmelterData data, SmelterLink.Kind kind) {
+        String world = null;
+        long target = 0L;
+        if (type == Type.ADD) {
+            world = data.getWorldName();
+            target = data.block;
+        } else if (type == Type.LINK) {
+            world = RemoteSmelter.SmelterData.WORLDS.get(data.getLinkWorldId(kind));
+            target = data.getLinkBlock(kind);
+        }
+        return new StorageMutation(type, data.getOwner(), data.name, world,
+                world == null ? 0 : SmelterIndex.unpackX(target), world == null ? 0 : SmelterIndex.unpackY(target),
+                world == null ? 0 : SmelterIndex.unpackZ(target), kind,
+                data.getWorldName(), data.getX(), data.getY(), data.getZ());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+}
@@ -0,0 +1,367 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Furnace;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Lightable;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.inventory.BlastingRecipe;
+import org.bukkit.inventory.CookingRecipe;
+import org.bukkit.inventory.FurnaceInventory;
+import org.bukkit.inventory.FurnaceRecipe;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.SmokingRecipe;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class VirtualSmeltingEngine {
+
+    private static final long MILLIS_PER_TICK = 50L;
+    private static final int DEFAULT_FUEL_TICKS = 300;
+
+    private final Map<RemoteSmelter.SmelterData, FurnaceSnapshot> snapshots = new HashMap<>();
+    private static final long RECIPE_CACHE_MILLIS = 60_000L;
+
+    private final Map<Material, Map<Material, CookingRecipe<?>>> recipeCache = new EnumMap<>(Material.class);
+    private long recipeCacheExpiresAt;
+    private final Map<Material, Integer> fuelTicks = new EnumMap<>(Material.class);
+    private final Method setRecipeUsedCount;
+
+    public VirtualSmeltingEngine() {
+        registerFuels();
+        this.setRecipeUsedCount = findSetRecipeUsedCount();
+    }
+
+    private static Method findSetRecipeUsedCount() {
+        try {
+            return Furnace.class.getMethod("setRecipeUsedCount", CookingRecipe.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public void capture(RemoteSmelter.SmelterData data, Block block) {
+        BlockState state = block.getState();
+        if (!(state instanceof Furnace)) {
+            return;
+        }
+
+        Furnace furnace = (Furnace) state;
+        FurnaceInventory inventory = furnace.getSnapshotInventory();
+        ItemStack input = copy(inventory.getSmelting());
+        ItemStack fuel = copy(inventory.getFuel());
+
+        if (furnace.getBurnTime() <= 0 && (input == null || fuel == null)) {
+            snapshots.remove(data);
+            return;
+        }
+
+        snapshots.put(data, new FurnaceSnapshot(block.getType(), input, fuel, copy(inventory.getResult()),
+                furnace.getBurnTime(), furnace.getCookTime(), System.currentTimeMillis()));
+    }
+
+    public boolean hasSnapshot(RemoteSmelter.SmelterData data) {
+        return snapshots.containsKey(data);
+    }
+
+    public void discard(RemoteSmelter.SmelterData data) {
+        snapshots.remove(data);
+    }
+
+    public void move(RemoteSmelter.SmelterData from, RemoteSmelter.SmelterData to) {
+        FurnaceSnapshot snapshot = snapshots.remove(from);
+        if (snapshot != null) {
+            snapshots.put(to, snapshot);
+        }
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    public void invalidateRecipes() {
+        recipeCache.clear();
+        recipeCacheExpiresAt = 0L;
+    }
+
+    public void resume(RemoteSmelter.SmelterData data, Block block) {
+        FurnaceSnapshot snapshot = snapshots.remove(data);
+        if (snapshot == null) {
+            return;
+        }
+
+        BlockState state = block.getState();
+        if (!(state instanceof Furnace) || block.getType() != snapshot.furnaceType) {
+            return;
+        }
+
+        long elapsed = (System.currentTimeMillis() - snapshot.capturedAt) / MILLIS_PER_TICK;
+        if (elapsed <= 0) {
+            return;
+        }
+
+        Furnace furnace = (Furnace) state;
+        simulate(snapshot, elapsed);
+        if (snapshot.cooked > 0) {
+            creditRecipe(furnace, block, snapshot.recipe, snapshot.cooked);
+        }
+
+        FurnaceInventory inventory = furnace.getSnapshotInventory();
+        inventory.setSmelting(snapshot.input);
+        inventory.setFuel(snapshot.fuel);
+        inventory.setResult(snapshot.result);
+        furnace.setBurnTime((short) Math.min(snapshot.burnTime, Short.MAX_VALUE));
+        furnace.setCookTime((short) snapshot.cookTime);
+        if (snapshot.cookTimeTotal > 0) {
+            furnace.setCookTimeTotal(snapshot.cookTimeTotal);
+        }
+
+        BlockData blockData = furnace.getBlockData();
+        if (blockData instanceof Lightable) {
+            ((Lightable) blockData).setLit(snapshot.burnTime > 0);
+            furnace.setBlockData(blockData);
+        }
+
+        furnace.update(true, false);
+    }
+
+    private void simulate(FurnaceSnapshot snapshot, long elapsed) {
+        CookingRecipe<?> recipe = snapshot.input == null ? null : findRecipe(snapshot.furnaceType, snapshot.input);
+        int canCook = recipe == null ? 0 : Math.min(snapshot.input.getAmount(), outputSpace(snapshot.result, recipe.getResult()));
+
+        if (canCook == 0) {
+            snapshot.burnTime = (int) Math.max(0L, snapshot.burnTime - elapsed);
+            snapshot.cookTime = 0;
+            return;
+        }
+
+        int cookTotal = Math.max(1, recipe.getCookingTime());
+        int ticksPerFuel = snapshot.fuel == null ? 0 : burnTicks(snapshot.furnaceType, snapshot.fuel.getType());
+        int fuelCount = ticksPerFuel > 0 ? snapshot.fuel.getAmount() : 0;
+
+        long needed = (long) canCook * cookTotal - snapshot.cookTime;
+        long fuelAvailable = snapshot.burnTime + (long) fuelCount * ticksPerFuel;
+        long active = Math.max(0L, Math.min(elapsed, Math.min(needed, fuelAvailable)));
+
+        long progress = snapshot.cookTime + active;
+        int cooked = (int) (progress / cookTotal);
+        snapshot.cookTime = cooked >= canCook ? 0 : (int) (progress % cookTotal);
+        snapshot.cookTimeTotal = cookTotal;
+
+        if (active > snapshot.burnTime) {
+            long extra = active - snapshot.burnTime;
+            int fuelUsed = (int) ((extra + ticksPerFuel - 1) / ticksPerFuel);
+            snapshot.burnTime = (int) ((long) fuelUsed * ticksPerFuel - extra);
+            snapshot.fuel = consumeFuel(snapshot.fuel, fuelUsed);
+        } else {
+            snapshot.burnTime -= (int) active;
+        }
+
+        snapshot.burnTime = (int) Math.max(0L, snapshot.burnTime - (elapsed - active));
+        if (snapshot.burnTime == 0) {
+            snapshot.cookTime = 0;
+        }
+
+        if (cooked > 0) {
+            snapshot.recipe = recipe;
+            snapshot.cooked = cooked;
+            snapshot.input = shrink(snapshot.input, cooked);
+            ItemStack produced = recipe.getResult().clone();
+            int amount = cooked * produced.getAmount();
+            if (snapshot.result == null) {
+                produced.setAmount(amount);
+                snapshot.result = produced;
+            } else {
+                snapshot.result.setAmount(snapshot.result.getAmount() + amount);
+            }
+        }
+    }
+
+    private void creditRecipe(Furnace furnace, Block block, CookingRecipe<?> recipe, int cooked) {
+        if (setRecipeUsedCount != null) {
+            int used = 0;
+            for (Map.Entry<CookingRecipe<?>, Integer> entry : furnace.getRecipesUsed().entrySet()) {
+                if (entry.getKey().getKey().equals(recipe.getKey())) {
+                    used = entry.getValue();
+                    break;
+                }
+            }
+            try {
+                setRecipeUsedCount.invoke(furnace, recipe, used + cooked);
+                return;
+            } catch (ReflectiveOperationException ignored) {
+            }
+        }
+
+        float total = recipe.getExperience() * cooked;
+        int experience = (int) total;
+        if (ThreadLocalRandom.current().nextFloat() < total - experience) {
+            experience++;
+        }
+        World world = block.getWorld();
+        if (experience > 0 && world != null) {
+            world.spawn(block.getLocation().add(0.5, 1.0, 0.5), ExperienceOrb.class).setExperience(experience);
+        }
+    }
+
+    private int outputSpace(ItemStack result, ItemStack produced) {
+        int perItem = Math.max(1, produced.getAmount());
+        if (result == null) {
+            return produced.getMaxStackSize() / perItem;
+        }
+        if (!result.isSimilar(produced)) {
+            return 0;
+        }
+        return Math.max(0, result.getMaxStackSize() - result.getAmount()) / perItem;
+    }
+
+    private ItemStack consumeFuel(ItemStack fuel, int used) {
+        if (fuel.getType() == Material.LAVA_BUCKET) {
+            return new ItemStack(Material.BUCKET);
+        }
+        return shrink(fuel, used);
+    }
+
+    private static ItemStack shrink(ItemStack stack, int amount) {
+        int remaining = stack.getAmount() - amount;
+        if (remaining <= 0) {
+            return null;
+        }
+        stack.setAmount(remaining);
+        return stack;
+    }
+
+    private static ItemStack copy(ItemStack stack) {
+        return stack == null || stack.getType() == Material.AIR ? null : stack.clone();
+    }
+
+    private CookingRecipe<?> findRecipe(Material furnaceType, ItemStack input) {
+        long now = System.currentTimeMillis();
+        if (now >= recipeCacheExpiresAt) {
+            recipeCache.clear();
+            recipeCacheExpiresAt = now + RECIPE_CACHE_MILLIS;
+        }
+
+        Map<Material, CookingRecipe<?>> byInput = recipeCache.computeIfAbsent(furnaceType, k -> new EnumMap<>(Material.class));
+        if (byInput.containsKey(input.getType())) {
+            CookingRecipe<?> cached = byInput.get(input.getType());
+            if (cached == null || cached.getInputChoice().test(input)) {
+                return cached;
+            }
+        }
+
+        CookingRecipe<?> found = null;
+        Iterator<Recipe> iterator = Bukkit.recipeIterator();
+        while (iterator.hasNext()) {
+            Recipe recipe = iterator.next();
+            if (recipe instanceof CookingRecipe && matchesFurnace(furnaceType, recipe)
+                    && ((CookingRecipe<?>) recipe).getInputChoice().test(input)) {
+                found = (CookingRecipe<?>) recipe;
+                break;
+            }
+        }
+
+        byInput.put(input.getType(), found);
+        return found;
+    }
+
+    private static boolean matchesFurnace(Material furnaceType, Recipe recipe) {
+        switch (furnaceType) {
+            case BLAST_FURNACE:
+                return recipe instanceof BlastingRecipe;
+            case SMOKER:
+                return recipe instanceof SmokingRecipe;
+            default:
+                return recipe instanceof FurnaceRecipe;
+        }
+    }
+
+    private int burnTicks(Material furnaceType, Material fuel) {
+        if (!fuel.isFuel()) {
+            return 0;
+        }
+        int ticks = fuelTicks.getOrDefault(fuel, DEFAULT_FUEL_TICKS);
+        return furnaceType == Material.FURNACE ? ticks : ticks / 2;
+    }
+
+    private void registerFuels() {
+        registerFuel(Tag.WOOL_CARPETS, 67);
+        registerFuel(Tag.WOOL, 100);
+        registerFuel(Tag.WOODEN_BUTTONS, 100);
+        registerFuel(Tag.SAPLINGS, 100);
+        registerFuel(Tag.WOODEN_SLABS, 150);
+        registerFuel(Tag.WOODEN_DOORS, 200);
+        registerFuel(Tag.SIGNS, 200);
+        registerFuel(Tag.LOGS_THAT_BURN, 300);
+        registerFuel(Tag.PLANKS, 300);
+        registerFuel(Tag.WOODEN_STAIRS, 300);
+        registerFuel(Tag.WOODEN_FENCES, 300);
+        registerFuel(Tag.FENCE_GATES, 300);
+        registerFuel(Tag.WOODEN_TRAPDOORS, 300);
+        registerFuel(Tag.WOODEN_PRESSURE_PLATES, 300);
+        registerFuel(Tag.BANNERS, 300);
+        registerFuel(Tag.ALL_HANGING_SIGNS, 800);
+        registerFuel(Tag.ITEMS_BOATS, 1200);
+        registerFuel(Tag.ITEMS_CHEST_BOATS, 1200);
+
+        fuelTicks.put(Material.BAMBOO, 50);
+        fuelTicks.put(Material.SCAFFOLDING, 50);
+        fuelTicks.put(Material.STICK, 100);
+        fuelTicks.put(Material.BOWL, 100);
+        fuelTicks.put(Material.DEAD_BUSH, 100);
+        fuelTicks.put(Material.AZALEA, 100);
+        fuelTicks.put(Material.FLOWERING_AZALEA, 100);
+        fuelTicks.put(Material.WOODEN_SWORD, 200);
+        fuelTicks.put(Material.WOODEN_PICKAXE, 200);
+        fuelTicks.put(Material.WOODEN_AXE, 200);
+        fuelTicks.put(Material.WOODEN_SHOVEL, 200);
+        fuelTicks.put(Material.WOODEN_HOE, 200);
+        fuelTicks.put(Material.COAL, 1600);
+        fuelTicks.put(Material.CHARCOAL, 1600);
+        fuelTicks.put(Material.BLAZE_ROD, 2400);
+        fuelTicks.put(Material.DRIED_KELP_BLOCK, 4001);
+        fuelTicks.put(Material.COAL_BLOCK, 16000);
+        fuelTicks.put(Material.LAVA_BUCKET, 20000);
+    }
+
+    private void registerFuel(Tag<Material> tag, int ticks) {
+        for (Material material : tag.getValues()) {
+            fuelTicks.put(material, ticks);
+        }
+    }
+
+    private static class FurnaceSnapshot {
+        final Material furnaceType;
+        final long capturedAt;
+        ItemStack input;
+        ItemStack fuel;
+        ItemStack result;
+        int burnTime;
+        int cookTime;
+        int cookTimeTotal;
+        CookingRecipe<?> recipe;
+        int cooked;
+
+        FurnaceSnapshot(Material furnaceType, ItemStack input, ItemStack fuel, ItemStack result,
+                        int burnTime, int cookTime, long capturedAt) {
+            this.furnaceType = furnaceType;
+            this.input = input;
+            this.fuel = fuel;
+            this.result = result;
+            this.burnTime = burnTime;
+            this.cookTime = cookTime;
+            this.capturedAt = capturedAt;
+        }
+    }
+}
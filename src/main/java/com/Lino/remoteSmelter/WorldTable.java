@@ -0,0 +1,57 @@
+package com.Lino.remoteSmelter;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+public class WorldTable extends InternTable<String> {
+
+    @SuppressWarnings("unchecked")
+    private volatile WeakReference<World>[] worlds = new WeakReference[16];
+
+    public int intern(World world) {
+        int id = intern(world.getName());
+        WeakReference<World>[] current = worlds;
+        if (id >= current.length || current[id] == null || current[id].get() != world) {
+            cache(id, world);
+        }
+        return id;
+    }
+
+    public int indexOf(World world) {
+        return indexOf(world.getName());
+    }
+
+    public World resolve(int id) {
+        WeakReference<World>[] current = worlds;
+        WeakReference<World> ref = id < current.length ? current[id] : null;
+        World world = ref == null ? null : ref.get();
+        if (world == null) {
+            world = Bukkit.getWorld(get(id));
+            if (world != null) {
+                cache(id, world);
+            }
+        }
+        return world;
+    }
+
+    public synchronized void forget(World world) {
+        int id = indexOf(world);
+        WeakReference<World>[] current = worlds;
+        if (id >= 0 && id < current.length) {
+            current[id] = null;
+            worlds = current;
+        }
+    }
+
+    private synchronized void cache(int id, World world) {
+        WeakReference<World>[] current = worlds;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, current.length << 1));
+        }
+        current[id] = new WeakReference<>(world);
+        worlds = current;
+    }
+}
@@ -0,0 +1,193 @@
+package com.Lino.remoteSmelter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class WriteBehindQueue<T extends WriteBehindQueue.Keyed> {
+
+    public interface Keyed {
+        String key();
+    }
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long MAX_BACKOFF_MILLIS = 30_000L;
+
+    private final Map<String, T> pending = new LinkedHashMap<>();
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final Function<List<T>, List<T>> writer;
+    private final Logger logger;
+    private final int maxDepth;
+    private final long flushIntervalMillis;
+    private final Object flushLock = new Object();
+    private Thread thread;
+    private volatile boolean running;
+    private volatile int failures;
+
+    public WriteBehindQueue(Function<List<T>, List<T>> writer, Logger logger, int maxDepth, long flushIntervalMillis) {
+        this.writer = writer;
+        this.logger = logger;
+        this.maxDepth = Math.max(1, maxDepth);
+        this.flushIntervalMillis = Math.max(1L, flushIntervalMillis);
+    }
+
+    public void start(String threadName) {
+        running = true;
+        thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void enqueue(T mutation) {
+        synchronized (pending) {
+            pending.remove(mutation.key());
+            pending.put(mutation.key(), mutation);
+
+            if (pending.size() >= maxDepth && failures == 0) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public boolean flush() {
+        synchronized (flushLock) {
+            List<T> batch = drain();
+            if (batch.isEmpty()) {
+                return true;
+            }
+
+            List<T> failed;
+            try {
+                failed = writer.apply(batch);
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Failed to persist " + batch.size() + " smelter changes", e);
+                failed = batch;
+            }
+
+            Set<T> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejected.addAll(failed);
+            Set<T> retry = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (T mutation : batch) {
+                if (!rejected.contains(mutation)) {
+                    attempts.remove(mutation.key());
+                    continue;
+                }
+
+                int attempt = attempts.merge(mutation.key(), 1, Integer::sum);
+                if (attempt < MAX_ATTEMPTS) {
+                    retry.add(mutation);
+                } else {
+                    attempts.remove(mutation.key());
+                    logger.severe("Giving up on smelter change " + mutation.key() + " after " + attempt + " attempts");
+                }
+            }
+
+            if (retry.isEmpty()) {
+                failures = 0;
+                return true;
+            }
+
+            failures++;
+            requeue(batch, retry);
+            logger.warning(retry.size() + " smelter changes could not be persisted, retrying in "
+                    + backoffMillis() + " ms");
+            return false;
+        }
+    }
+
+    public boolean shutdown() {
+        running = false;
+        synchronized (pending) {
+            pending.notifyAll();
+        }
+
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+
+        for (int attempt = 1; !flush() && attempt < MAX_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(Math.min(backoffMillis(), 1000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        int lost = size();
+        if (lost > 0) {
+            logger.severe("Lost " + lost + " smelter changes that could not be persisted before shutdown");
+        }
+        return lost == 0;
+    }
+
+    private List<T> drain() {
+        synchronized (pending) {
+            List<T> batch = new ArrayList<>(pending.size());
+            Iterator<T> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            return batch;
+        }
+    }
+
+    private void requeue(List<T> batch, Set<T> retry) {
+        synchronized (pending) {
+            Map<String, T> newer = new LinkedHashMap<>(pending);
+            pending.clear();
+            for (T mutation : batch) {
+                if (retry.contains(mutation) && !newer.containsKey(mutation.key())) {
+                    pending.put(mutation.key(), mutation);
+                }
+            }
+            pending.putAll(newer);
+        }
+    }
+
+    private long backoffMillis() {
+        int failed = failures;
+        if (failed == 0) {
+            return flushIntervalMillis;
+        }
+        return Math.min(MAX_BACKOFF_MILLIS, flushIntervalMillis << Math.min(failed, 16));
+    }
+
+    private void run() {
+        while (running) {
+            synchronized (pending) {
+                if (running && (failures > 0 || pending.size() < maxDepth)) {
+                    try {
+                        pending.wait(backoffMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+
+            flush();
+        }
+    }
+}